@@ -0,0 +1,50 @@
+package vaultweb.apigateway.benchmarks;
+
+import static org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.BCryptVersion.$2B;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import vaultweb.apigateway.util.BcryptUtil;
+
+/**
+ * {@link BcryptUtil#matches} against hashes of several costs. The cost is read from the stored
+ * hash, so this is what a login costs for users hashed at that cost. Every step of the cost doubles
+ * the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BcryptBenchmark {
+  private static final String PASSWORD = "correct horse battery staple";
+
+  @Param({"10", "11", "12", "13"})
+  public int cost;
+
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    hash = new BCryptPasswordEncoder($2B, cost).encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return BcryptUtil.matches(PASSWORD, hash);
+  }
+}
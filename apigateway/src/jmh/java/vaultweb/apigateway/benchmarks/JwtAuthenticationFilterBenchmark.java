@@ -0,0 +1,99 @@
+package vaultweb.apigateway.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.WebFilterChain;
+
+import vaultweb.apigateway.config.JwtAuthenticationFilter;
+import vaultweb.apigateway.config.PublicRouteMatcher;
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.util.JwtKeyRing;
+import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Full passes through {@link JwtAuthenticationFilter}: rejections, which write the JSON error body
+ * through {@link ErrorResponseWriter}, and an accepted token served from the token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+  private static final WebFilterChain CHAIN = exchange -> Mono.empty();
+
+  private JwtAuthenticationFilter filter;
+  private String validToken;
+
+  @Setup
+  public void setUp() {
+    JwtUtil jwtUtil = new JwtUtil(new JwtKeyRing(new MockEnvironment(), "", null, true));
+    ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+    ReflectionTestUtils.setField(jwtUtil, "defaultRoles", List.of("user"));
+    validToken =
+        jwtUtil.generateToken(
+            User.builder().id(42).username("bench").email("bench@example.com").build());
+
+    MockEnvironment environment = new MockEnvironment();
+    environment.setProperty("auth.publicUrls", "/auth/login,/auth/register");
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    filter =
+        new JwtAuthenticationFilter(
+            jwtUtil,
+            new VerifiedTokenCache(10_000, meterRegistry),
+            new PublicRouteMatcher(environment),
+            new RevokedTokenSet(100_000, meterRegistry),
+            new ErrorResponseWriter(),
+            meterRegistry);
+  }
+
+  @Benchmark
+  public MockServerWebExchange rejectMissingHeader() {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(MockServerHttpRequest.get("/api/vault/items"));
+    filter.filter(exchange, CHAIN).block();
+    return exchange;
+  }
+
+  @Benchmark
+  public MockServerWebExchange rejectMalformedToken() {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/vault/items")
+                .header("Authorization", "Bearer not.a.token"));
+    filter.filter(exchange, CHAIN).block();
+    return exchange;
+  }
+
+  @Benchmark
+  public MockServerWebExchange acceptCachedToken() {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/vault/items")
+                .header("Authorization", "Bearer " + validToken));
+    filter.filter(exchange, CHAIN).block();
+    return exchange;
+  }
+}
@@ -0,0 +1,61 @@
+package vaultweb.apigateway.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.util.JwtKeyRing;
+import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.VerifiedClaims;
+
+/**
+ * Signing and verifying access tokens with the default ES256 key ring, without the token cache in
+ * front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+  private JwtUtil jwtUtil;
+  private User user;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtUtil = new JwtUtil(new JwtKeyRing(new MockEnvironment(), "", null, true));
+    // the @Value defaults from JwtUtil
+    ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+    ReflectionTestUtils.setField(jwtUtil, "defaultRoles", List.of("user"));
+    ReflectionTestUtils.setField(jwtUtil, "includeUserId", true);
+    ReflectionTestUtils.setField(jwtUtil, "includeProfile", false);
+
+    user = User.builder().id(42).name("Bench").username("bench").email("bench@example.com").build();
+    token = jwtUtil.generateToken(user);
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtUtil.generateToken(user);
+  }
+
+  @Benchmark
+  public VerifiedClaims verify() {
+    return jwtUtil.verify(token);
+  }
+}
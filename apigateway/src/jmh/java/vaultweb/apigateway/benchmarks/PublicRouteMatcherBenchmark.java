@@ -0,0 +1,76 @@
+package vaultweb.apigateway.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import vaultweb.apigateway.config.PublicRouteMatcher;
+
+/**
+ * The public-endpoint check {@code JwtAuthenticationFilter} runs on every request, as {@code
+ * auth.publicUrls} grows. Half of the configured entries are literal paths, half are wildcard
+ * patterns under distinct prefixes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicRouteMatcherBenchmark {
+  @Param({"5", "50", "500"})
+  public int patterns;
+
+  private PublicRouteMatcher matcher;
+  private ServerHttpRequest literalHit;
+  private ServerHttpRequest wildcardHit;
+  private ServerHttpRequest miss;
+
+  @Setup
+  public void setUp() {
+    List<String> entries = new ArrayList<>();
+    for (int i = 0; i < patterns; i++) {
+      entries.add(i % 2 == 0 ? "/public/literal-" + i : "GET /public/tree-" + i + "/**");
+    }
+    MockEnvironment environment = new MockEnvironment();
+    environment.setProperty("auth.publicUrls", String.join(",", entries));
+    matcher = new PublicRouteMatcher(environment);
+
+    // the wildcard entry inserted last, odd indices are wildcards
+    int lastWildcard = patterns % 2 == 0 ? patterns - 1 : patterns - 2;
+    literalHit = MockServerHttpRequest.post("/public/literal-0").build();
+    wildcardHit =
+        MockServerHttpRequest.get("/public/tree-" + lastWildcard + "/nested/resource").build();
+    miss = MockServerHttpRequest.get("/api/vault/items/42").build();
+  }
+
+  @Benchmark
+  public boolean literalHit() {
+    return matcher.isPublic(literalHit);
+  }
+
+  @Benchmark
+  public boolean wildcardHit() {
+    return matcher.isPublic(wildcardHit);
+  }
+
+  @Benchmark
+  public boolean miss() {
+    return matcher.isPublic(miss);
+  }
+}
@@ -0,0 +1,75 @@
+package vaultweb.apigateway.benchmarks;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import vaultweb.apigateway.util.RefreshTokenGenerator;
+
+/**
+ * Compares {@link RefreshTokenGenerator} with the former per-call {@code new SecureRandom()}
+ * approach, single-threaded and under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshTokenGeneratorBenchmark {
+  private RefreshTokenGenerator generator;
+
+  @Setup
+  public void setUp() {
+    generator = new RefreshTokenGenerator(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    generator.destroy();
+  }
+
+  /** The implementation RefreshTokenService used before the dedicated generator. */
+  private static String perCallSecureRandom() {
+    SecureRandom secureRandom = new SecureRandom();
+    Base64.Encoder base64Encoder = Base64.getUrlEncoder().withoutPadding();
+    byte[] randomBytes = new byte[32];
+    secureRandom.nextBytes(randomBytes);
+    return base64Encoder.encodeToString(randomBytes);
+  }
+
+  @Benchmark
+  public String perCallSecureRandomSingleThread() {
+    return perCallSecureRandom();
+  }
+
+  @Benchmark
+  public String generatorSingleThread() {
+    return generator.generate();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String perCallSecureRandomContended() {
+    return perCallSecureRandom();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String generatorContended() {
+    return generator.generate();
+  }
+}
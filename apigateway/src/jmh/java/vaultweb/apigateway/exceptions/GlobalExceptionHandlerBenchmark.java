@@ -0,0 +1,56 @@
+package vaultweb.apigateway.exceptions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Handling a routine {@link ExpectedFailureException}: counting and sampling it through the {@link
+ * ErrorLogPolicy} and writing the JSON error body with {@link ErrorResponseWriter}. Lives in the
+ * handler's package because the handler methods are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+  private GlobalExceptionHandler handler;
+  private DefaultException exception;
+
+  @Setup
+  public void setUp() {
+    handler =
+        new GlobalExceptionHandler(
+            new ErrorResponseWriter(),
+            new ErrorLogPolicy(new MockEnvironment(), new SimpleMeterRegistry()));
+    exception =
+        new ExpectedFailureException(
+            "Invalid email or password", DefaultExceptionLevels.AUTHENTICATION_EXCEPTION);
+  }
+
+  @Benchmark
+  public MockServerWebExchange handleDefaultException() {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(MockServerHttpRequest.post("/auth/login"));
+    handler.handleDefaultException(exception, exchange).block();
+    return exchange;
+  }
+}
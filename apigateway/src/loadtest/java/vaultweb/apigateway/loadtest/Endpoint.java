@@ -0,0 +1,28 @@
+package vaultweb.apigateway.loadtest;
+
+import java.util.Locale;
+
+/** The request types of the traffic mix and the status each one must answer with. */
+enum Endpoint {
+  LOGIN(200),
+  ME(200),
+  SWITCH_JWT(200),
+  PROXY_VALID(200),
+  PROXY_EXPIRED(401),
+  PROXY_GARBAGE(401);
+
+  private final int expectedStatus;
+
+  Endpoint(int expectedStatus) {
+    this.expectedStatus = expectedStatus;
+  }
+
+  int expectedStatus() {
+    return expectedStatus;
+  }
+
+  /** Name used in {@code loadtest.properties} keys and in the report. */
+  String key() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
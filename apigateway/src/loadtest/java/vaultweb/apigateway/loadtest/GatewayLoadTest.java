@@ -0,0 +1,267 @@
+package vaultweb.apigateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import vaultweb.apigateway.dto.request.LoginRequest;
+import vaultweb.apigateway.dto.response.AuthResponse;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.repositories.UserRepository;
+import vaultweb.apigateway.util.BcryptUtil;
+import vaultweb.apigateway.util.JwtKeyRing;
+
+import io.jsonwebtoken.Jwts;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Boots the gateway against an embedded Postgres and a local stub upstream, drives a mixed
+ * closed-loop workload and fails if a threshold from {@code loadtest.properties} is exceeded.
+ *
+ * <p>Each virtual user owns one account and sends its requests one after another: logins, {@code
+ * /auth/me}, refresh token rotation and requests proxied through a {@code Jwt} route with a valid,
+ * an expired and a garbage token. The database runs with fsync off, so the numbers show the gateway
+ * and its queries rather than disk latency. The load generator shares the machine with the gateway;
+ * compare runs on the same box only.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "auth.refreshTokenSweeper.enabled=false",
+      "jwt.signing.generateEphemeralKey=true",
+      // every virtual user logs in from the same address and repeatedly
+      "auth.rateLimit.address.capacity=1000000",
+      "auth.rateLimit.username.capacity=100000",
+      "logging.level.vaultweb.apigateway=WARN",
+      // expected rejections are part of the mix
+      "logging.level.vaultweb.apigateway.exceptions=OFF"
+    })
+class GatewayLoadTest {
+  private static final String PASSWORD = "Load-test-1";
+
+  private static EmbeddedPostgres postgres;
+  private static DisposableServer upstream;
+
+  @LocalServerPort private int port;
+  @Autowired private UserRepository userRepository;
+  @Autowired private JwtKeyRing keyRing;
+
+  @DynamicPropertySource
+  static void environment(DynamicPropertyRegistry registry) throws IOException {
+    postgres =
+        EmbeddedPostgres.builder()
+            .setServerConfig("fsync", "off")
+            .setServerConfig("synchronous_commit", "off")
+            .setServerConfig("full_page_writes", "off")
+            .start();
+    upstream =
+        HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle(
+                (request, response) ->
+                    response
+                        .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .sendString(Mono.just("{\"ok\":true}")))
+            .bindNow();
+
+    String database = "localhost:" + postgres.getPort() + "/postgres";
+    registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + database);
+    registry.add("spring.r2dbc.username", () -> "postgres");
+    registry.add("spring.r2dbc.password", () -> "postgres");
+    registry.add("spring.flyway.url", () -> "jdbc:postgresql://" + database);
+
+    String route = "spring.cloud.gateway.server.webflux.routes[0].";
+    registry.add(route + "id", () -> "stub");
+    registry.add(route + "uri", () -> "http://127.0.0.1:" + upstream.port());
+    registry.add(route + "predicates[0]", () -> "Path=/api/**");
+    registry.add(route + "filters[0]", () -> "Jwt=user");
+  }
+
+  @AfterAll
+  static void shutDown() throws IOException {
+    upstream.disposeNow();
+    postgres.close();
+  }
+
+  @Test
+  void mixedTraffic() {
+    LoadTestSettings settings = LoadTestSettings.load();
+    WebClient client =
+        WebClient.builder()
+            .baseUrl("http://127.0.0.1:" + port)
+            .clientConnector(
+                new ReactorClientHttpConnector(
+                    HttpClient.create(
+                        ConnectionProvider.builder("loadtest")
+                            .maxConnections(settings.users())
+                            .pendingAcquireMaxCount(-1)
+                            .build())))
+            .build();
+
+    String expiredToken = expiredToken();
+    List<VirtualUser> users = createUsers(settings.users(), client, expiredToken);
+    LatencyReport report = new LatencyReport();
+
+    run(users, settings, report, settings.warmup());
+    report.reset();
+    run(users, settings, report, settings.duration());
+    report.stop();
+
+    System.out.printf(
+        "%nGateway load test: %d users, %s warm-up, %s measured%n%s%n",
+        settings.users(), settings.warmup(), settings.duration(), report.format());
+    List<String> violations = report.violations(settings);
+    assertTrue(
+        violations.isEmpty(), () -> "Thresholds exceeded:\n" + String.join("\n", violations));
+  }
+
+  private static void run(
+      List<VirtualUser> users, LoadTestSettings settings, LatencyReport report, Duration duration) {
+    Instant until = Instant.now().plus(duration);
+    Flux.fromIterable(users)
+        .flatMap(user -> user.run(settings, report, until), users.size())
+        .blockLast();
+  }
+
+  /** Stores the accounts directly, sharing one hash, and logs every virtual user in once. */
+  private List<VirtualUser> createUsers(int count, WebClient client, String expiredToken) {
+    String hash = BcryptUtil.encode(PASSWORD);
+    String run = UUID.randomUUID().toString().substring(0, 8);
+    List<User> accounts = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String username = "load-" + run + "-" + i;
+      accounts.add(
+          User.builder()
+              .name(username)
+              .username(username)
+              .email(username + "@example.com")
+              .password(hash)
+              .build());
+    }
+    return userRepository
+        .saveAll(accounts)
+        .map(user -> new VirtualUser(client, user.getUsername(), expiredToken))
+        .flatMap(user -> user.send(Endpoint.LOGIN).thenReturn(user))
+        .collectList()
+        .block();
+  }
+
+  /** A token with a valid signature that expired a minute ago. */
+  private String expiredToken() {
+    JwtKeyRing.SigningKey key = keyRing.currentSigningKey();
+    Instant issued = Instant.now().minus(Duration.ofHours(1));
+    return Jwts.builder()
+        .header()
+        .keyId(key.kid())
+        .and()
+        .subject("expired")
+        .claim("roles", List.of("user"))
+        .issuedAt(Date.from(issued))
+        .expiration(Date.from(Instant.now().minus(Duration.ofMinutes(1))))
+        .signWith(key.privateKey())
+        .compact();
+  }
+
+  /** One account that sends requests sequentially and keeps the tokens it was last issued. */
+  private static final class VirtualUser {
+    private final WebClient client;
+    private final String username;
+    private final String expiredToken;
+    private final String garbageToken = UUID.randomUUID() + "." + UUID.randomUUID() + ".x";
+    private volatile String accessToken;
+    private volatile String refreshToken;
+
+    VirtualUser(WebClient client, String username, String expiredToken) {
+      this.client = client;
+      this.username = username;
+      this.expiredToken = expiredToken;
+    }
+
+    Mono<Void> run(LoadTestSettings settings, LatencyReport report, Instant until) {
+      return Mono.defer(
+              () -> {
+                Endpoint endpoint = settings.nextEndpoint();
+                long started = System.nanoTime();
+                return send(endpoint)
+                    .onErrorReturn(-1)
+                    .doOnNext(
+                        status ->
+                            report.record(
+                                endpoint,
+                                System.nanoTime() - started,
+                                status == endpoint.expectedStatus()));
+              })
+          .repeat(() -> Instant.now().isBefore(until))
+          .then();
+    }
+
+    Mono<Integer> send(Endpoint endpoint) {
+      return switch (endpoint) {
+        case LOGIN ->
+            client
+                .post()
+                .uri("/auth/login")
+                .bodyValue(new LoginRequest(username, PASSWORD))
+                .exchangeToMono(this::storeTokens);
+        case ME -> get("/auth/me", accessToken);
+        case SWITCH_JWT ->
+            client
+                .get()
+                .uri("/auth/switch-jwt/{token}", refreshToken)
+                .exchangeToMono(this::storeTokens);
+        case PROXY_VALID -> get("/api/items", accessToken);
+        case PROXY_EXPIRED -> get("/api/items", expiredToken);
+        case PROXY_GARBAGE -> get("/api/items", garbageToken);
+      };
+    }
+
+    private Mono<Integer> get(String path, String token) {
+      return client
+          .get()
+          .uri(path)
+          .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+          .exchangeToMono(
+              response -> response.releaseBody().thenReturn(response.statusCode().value()));
+    }
+
+    private Mono<Integer> storeTokens(ClientResponse response) {
+      int status = response.statusCode().value();
+      if (status != 200) {
+        return response.releaseBody().thenReturn(status);
+      }
+      return response
+          .bodyToMono(AuthResponse.class)
+          .map(
+              tokens -> {
+                accessToken = tokens.accessToken();
+                refreshToken = tokens.refreshToken();
+                return status;
+              });
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package vaultweb.apigateway.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/** Per-endpoint latency histograms and error counts of one measurement window. */
+final class LatencyReport {
+  private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+  private volatile long startedNanos = System.nanoTime();
+  private volatile long stoppedNanos;
+
+  LatencyReport() {
+    for (Endpoint endpoint : Endpoint.values()) {
+      latencies.put(endpoint, new ConcurrentHistogram(MAX_TRACKED_MICROS, 3));
+      errors.put(endpoint, new LongAdder());
+    }
+  }
+
+  void record(Endpoint endpoint, long elapsedNanos, boolean ok) {
+    long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_TRACKED_MICROS);
+    latencies.get(endpoint).recordValue(micros);
+    if (!ok) {
+      errors.get(endpoint).increment();
+    }
+  }
+
+  /** Drops everything recorded so far, used to discard the warm-up. */
+  void reset() {
+    latencies.values().forEach(Histogram::reset);
+    errors.values().forEach(LongAdder::reset);
+    startedNanos = System.nanoTime();
+  }
+
+  void stop() {
+    stoppedNanos = System.nanoTime();
+  }
+
+  String format() {
+    double seconds = (stoppedNanos - startedNanos) / 1e9;
+    StringBuilder out = new StringBuilder();
+    out.append(
+        String.format(
+            "%-14s %9s %9s %8s %10s %10s %10s%n",
+            "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms"));
+    long total = 0;
+    for (Endpoint endpoint : Endpoint.values()) {
+      Histogram histogram = latencies.get(endpoint);
+      total += histogram.getTotalCount();
+      out.append(
+          String.format(
+              "%-14s %9d %9.1f %8d %10.2f %10.2f %10.2f%n",
+              endpoint.key(),
+              histogram.getTotalCount(),
+              histogram.getTotalCount() / seconds,
+              errors.get(endpoint).sum(),
+              millis(histogram, 50.0),
+              millis(histogram, 99.0),
+              millis(histogram, 99.9)));
+    }
+    out.append(String.format("%-14s %9d %9.1f%n", "total", total, total / seconds));
+    return out.toString();
+  }
+
+  /** Lists every threshold the run exceeded. */
+  List<String> violations(LoadTestSettings settings) {
+    List<String> violations = new ArrayList<>();
+    for (Endpoint endpoint : Endpoint.values()) {
+      Histogram histogram = latencies.get(endpoint);
+      long count = histogram.getTotalCount();
+      if (count == 0) {
+        if (settings.mix().get(endpoint) > 0) {
+          violations.add(endpoint.key() + ": no requests completed");
+        }
+        continue;
+      }
+      double errorRate = (double) errors.get(endpoint).sum() / count;
+      if (errorRate > settings.maxErrorRate()) {
+        violations.add(
+            String.format(
+                "%s: error rate %.4f > %.4f", endpoint.key(), errorRate, settings.maxErrorRate()));
+      }
+      LoadTestSettings.Thresholds thresholds = settings.thresholds().get(endpoint);
+      check(violations, endpoint, "p50", histogram, 50.0, thresholds.p50());
+      check(violations, endpoint, "p99", histogram, 99.0, thresholds.p99());
+      check(violations, endpoint, "p999", histogram, 99.9, thresholds.p999());
+    }
+    return violations;
+  }
+
+  private static void check(
+      List<String> violations,
+      Endpoint endpoint,
+      String name,
+      Histogram histogram,
+      double percentile,
+      Duration limit) {
+    if (limit == null) {
+      return;
+    }
+    long micros = histogram.getValueAtPercentile(percentile);
+    if (micros > TimeUnit.NANOSECONDS.toMicros(limit.toNanos())) {
+      violations.add(
+          String.format(
+              "%s: %s %.2f ms > %d ms", endpoint.key(), name, micros / 1000.0, limit.toMillis()));
+    }
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / 1000.0;
+  }
+}
@@ -0,0 +1,86 @@
+package vaultweb.apigateway.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.properties} on the classpath and
+ * overridden by system properties of the same name.
+ */
+record LoadTestSettings(
+    int users,
+    Duration warmup,
+    Duration duration,
+    Map<Endpoint, Integer> mix,
+    double maxErrorRate,
+    Map<Endpoint, Thresholds> thresholds) {
+
+  /**
+   * Latency limits of one endpoint.
+   *
+   * @param p50 maximum median
+   * @param p99 maximum 99th percentile
+   * @param p999 maximum 99.9th percentile
+   */
+  record Thresholds(Duration p50, Duration p99, Duration p999) {}
+
+  static LoadTestSettings load() {
+    Properties properties = new Properties();
+    try (InputStream in = LoadTestSettings.class.getResourceAsStream("/loadtest.properties")) {
+      if (in != null) {
+        properties.load(in);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    properties.putAll(System.getProperties());
+
+    Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+    Map<Endpoint, Thresholds> thresholds = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : Endpoint.values()) {
+      mix.put(
+          endpoint,
+          Integer.parseInt(properties.getProperty("loadtest.mix." + endpoint.key(), "0")));
+      thresholds.put(
+          endpoint,
+          new Thresholds(
+              threshold(properties, endpoint, "p50"),
+              threshold(properties, endpoint, "p99"),
+              threshold(properties, endpoint, "p999")));
+    }
+    return new LoadTestSettings(
+        Integer.parseInt(properties.getProperty("loadtest.users", "32")),
+        Duration.parse(properties.getProperty("loadtest.warmup", "PT10S")),
+        Duration.parse(properties.getProperty("loadtest.duration", "PT30S")),
+        mix,
+        Double.parseDouble(properties.getProperty("loadtest.threshold.errorRate", "0.001")),
+        thresholds);
+  }
+
+  private static Duration threshold(Properties properties, Endpoint endpoint, String percentile) {
+    String value =
+        properties.getProperty(
+            "loadtest.threshold." + endpoint.key() + "." + percentile,
+            properties.getProperty("loadtest.threshold." + percentile));
+    return value == null ? null : Duration.parse(value);
+  }
+
+  /** Picks the next endpoint according to the mix weights. */
+  Endpoint nextEndpoint() {
+    int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+    int pick = ThreadLocalRandom.current().nextInt(total);
+    for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+      pick -= entry.getValue();
+      if (pick < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("Empty traffic mix");
+  }
+}
@@ -0,0 +1,54 @@
+package vaultweb.apigateway.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opens the R2DBC pool's minimum number of connections ({@code
+ * spring.r2dbc.pool.initialSize}/{@code minIdle}) before the application reports ready.
+ *
+ * <p>Application runners complete before Spring Boot switches the readiness state to {@code
+ * ACCEPTING_TRAFFIC}, so the first requests after a rollout find established connections instead of
+ * paying for the TCP, TLS and authentication handshakes. If the database cannot be reached within
+ * {@code auth.connectionPool.warmupTimeout} startup continues and the pool fills on demand.
+ */
+@Component
+@Slf4j
+public class ConnectionPoolWarmer implements ApplicationRunner {
+  private final ObjectProvider<ConnectionFactory> connectionFactory;
+  private final Duration timeout;
+
+  public ConnectionPoolWarmer(
+      ObjectProvider<ConnectionFactory> connectionFactory,
+      @Value("${auth.connectionPool.warmupTimeout:PT10S}") Duration timeout) {
+    this.connectionFactory = connectionFactory;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!(connectionFactory.getIfAvailable() instanceof ConnectionPool pool)) {
+      return;
+    }
+    long started = System.nanoTime();
+    try {
+      Integer created = pool.warmup().block(timeout);
+      log.info(
+          "Warmed up R2DBC pool with {} connections in {} ms",
+          created,
+          Duration.ofNanos(System.nanoTime() - started).toMillis());
+    } catch (RuntimeException e) {
+      log.warn(
+          "Could not warm up R2DBC pool, connections will be opened on demand: {}", e.getMessage());
+    }
+  }
+}
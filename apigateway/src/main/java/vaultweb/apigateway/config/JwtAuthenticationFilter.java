@@ -1,45 +1,112 @@
 package vaultweb.apigateway.config;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
 import vaultweb.apigateway.util.JwtUtil;
-
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedClaims;
+import vaultweb.apigateway.util.VerifiedTokenCache;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.NonNull;
 import reactor.core.publisher.Mono;
 
 @Component
 public class JwtAuthenticationFilter implements WebFilter {
-  @Value("${auth.publicUrls}")
-  private String[] publicEndpoints;
+  /** Exchange attribute holding the {@link Authentication} resolved by the first filter pass. */
+  public static final String AUTHENTICATION_ATTRIBUTE =
+      JwtAuthenticationFilter.class.getName() + ".authentication";
 
-  private final JwtUtil jwtUtil;
-  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+  /** Exchange attribute set when the request path was already found to be public. */
+  public static final String PUBLIC_ENDPOINT_ATTRIBUTE =
+      JwtAuthenticationFilter.class.getName() + ".publicEndpoint";
 
-  public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+  private final JwtUtil jwtUtil;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final PublicRouteMatcher publicRouteMatcher;
+  private final RevokedTokenSet revokedTokens;
+  private final ErrorResponseWriter errorResponseWriter;
+
+  private final Timer verifyTimer;
+  private final Counter acceptedPublic;
+  private final Counter acceptedToken;
+  private final Counter rejectedMissingToken;
+  private final Counter rejectedExpired;
+  private final Counter rejectedInvalidSignature;
+  private final Counter rejectedUnsupported;
+  private final Counter rejectedMalformed;
+  private final Counter rejectedRevoked;
+
+  public JwtAuthenticationFilter(
+      JwtUtil jwtUtil,
+      VerifiedTokenCache verifiedTokenCache,
+      PublicRouteMatcher publicRouteMatcher,
+      RevokedTokenSet revokedTokens,
+      ErrorResponseWriter errorResponseWriter,
+      MeterRegistry meterRegistry) {
     this.jwtUtil = jwtUtil;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.publicRouteMatcher = publicRouteMatcher;
+    this.revokedTokens = revokedTokens;
+    this.errorResponseWriter = errorResponseWriter;
+
+    this.verifyTimer =
+        Timer.builder("auth.token.verify.duration")
+            .description("Time spent parsing and verifying tokens missing from the token cache")
+            .register(meterRegistry);
+    this.acceptedPublic = filterCounter(meterRegistry, "accepted", "public");
+    this.acceptedToken = filterCounter(meterRegistry, "accepted", "token");
+    this.rejectedMissingToken = filterCounter(meterRegistry, "rejected", "missing_token");
+    this.rejectedExpired = filterCounter(meterRegistry, "rejected", "expired");
+    this.rejectedInvalidSignature = filterCounter(meterRegistry, "rejected", "invalid_signature");
+    this.rejectedUnsupported = filterCounter(meterRegistry, "rejected", "unsupported");
+    this.rejectedMalformed = filterCounter(meterRegistry, "rejected", "malformed");
+    this.rejectedRevoked = filterCounter(meterRegistry, "rejected", "revoked");
+  }
+
+  private static Counter filterCounter(MeterRegistry meterRegistry, String result, String reason) {
+    return Counter.builder("auth.filter.requests")
+        .description("Requests seen by the JWT filter, by result and reason")
+        .tag("result", result)
+        .tag("reason", reason)
+        .register(meterRegistry);
   }
 
   @Override
   @NonNull
   public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
-    String path = exchange.getRequest().getURI().getPath();
+    // Reuse the outcome of an earlier pass (security chain first, then the Jwt route filter)
+    Authentication authenticated = exchange.getAttribute(AUTHENTICATION_ATTRIBUTE);
+    if (authenticated != null) {
+      return chain
+          .filter(exchange)
+          .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticated));
+    }
+    if (exchange.getAttribute(PUBLIC_ENDPOINT_ATTRIBUTE) != null) {
+      return chain.filter(exchange);
+    }
+
     // Skip JWT validation for public endpoints
-    if (Arrays.stream(publicEndpoints).anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+    if (publicRouteMatcher.isPublic(exchange.getRequest())) {
+      exchange.getAttributes().put(PUBLIC_ENDPOINT_ATTRIBUTE, Boolean.TRUE);
+      acceptedPublic.increment();
       return chain.filter(exchange);
     }
     return authenticateAndFilter(exchange, chain);
@@ -49,41 +116,64 @@ public class JwtAuthenticationFilter implements WebFilter {
     String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
 
     if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+      rejectedMissingToken.increment();
       return sendErrorResponse(exchange, "Missing or invalid Authorization header");
     }
 
     String token = authHeader.substring(7);
 
-    if (!jwtUtil.validateToken(token)) {
+    VerifiedTokenCache.Entry entry;
+    try {
+      entry = verifiedTokenCache.get(token, this::verify);
+    } catch (JwtException | IllegalArgumentException e) {
+      rejectionCounter(e).increment();
       return sendErrorResponse(exchange, "Invalid or expired token");
     }
-
-    String username = jwtUtil.extractSubject(token);
-
-    Authentication authentication =
-        new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
+    // checked on every request, cached tokens can be revoked after they were verified
+    if (revokedTokens.isRevoked(entry.claims().jti())) {
+      rejectedRevoked.increment();
+      return sendErrorResponse(exchange, "Invalid or expired token");
+    }
+    Authentication authentication = entry.authentication();
+    exchange.getAttributes().put(AUTHENTICATION_ATTRIBUTE, authentication);
+    acceptedToken.increment();
 
     return chain
         .filter(exchange)
         .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
   }
 
+  /**
+   * Verifies the token signature and resolves the authentication for its subject and roles.
+   *
+   * @param token the raw bearer token
+   * @return the verified cache entry
+   */
+  private VerifiedTokenCache.Entry verify(String token) {
+    VerifiedClaims claims = verifyTimer.record(() -> jwtUtil.verify(token));
+    List<SimpleGrantedAuthority> authorities =
+        claims.roles().stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role)).toList();
+    UsernamePasswordAuthenticationToken authentication =
+        new UsernamePasswordAuthenticationToken(claims.subject(), null, authorities);
+    // expose the verified claims so handlers can answer without a user lookup
+    authentication.setDetails(claims);
+    return new VerifiedTokenCache.Entry(claims, authentication);
+  }
+
+  private Counter rejectionCounter(RuntimeException e) {
+    if (e instanceof ExpiredJwtException) {
+      return rejectedExpired;
+    }
+    if (e instanceof SecurityException) {
+      return rejectedInvalidSignature;
+    }
+    if (e instanceof UnsupportedJwtException) {
+      return rejectedUnsupported;
+    }
+    return rejectedMalformed;
+  }
+
   private Mono<Void> sendErrorResponse(ServerWebExchange exchange, String message) {
-    exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-    exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
-
-    String path = exchange.getRequest().getURI().getPath();
-    String errorJson =
-        String.format(
-            "{\"message\":\"%s\",\"timestamp\":\"%s\",\"path\":\"%s\",\"errorCode\":\"%s\"}",
-            message,
-            new java.sql.Timestamp(System.currentTimeMillis()),
-            path,
-            "AUTHENTICATION_EXCEPTION");
-
-    DataBuffer buffer =
-        exchange.getResponse().bufferFactory().wrap(errorJson.getBytes(StandardCharsets.UTF_8));
-
-    return exchange.getResponse().writeWith(Mono.just(buffer));
+    return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, message);
   }
 }
@@ -1,25 +1,86 @@
 package vaultweb.apigateway.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.server.WebFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+
+import lombok.Getter;
+import lombok.Setter;
+import reactor.core.publisher.Mono;
 
-@Configuration
-public class JwtGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+/**
+ * Route filter {@code Jwt}. Authentication normally already happened in the security chain, in
+ * which case the stored result is reused and only the per-route role requirements are checked, e.g.
+ * {@code - Jwt=admin}.
+ */
+// a plain component: a CGLIB-proxied @Configuration class name no longer resolves to "Jwt"
+@Component
+public class JwtGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<JwtGatewayFilterFactory.Config> {
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
+  private final ErrorResponseWriter errorResponseWriter;
 
-  public JwtGatewayFilterFactory(JwtAuthenticationFilter jwtAuthenticationFilter) {
+  public JwtGatewayFilterFactory(
+      JwtAuthenticationFilter jwtAuthenticationFilter, ErrorResponseWriter errorResponseWriter) {
+    super(Config.class);
     this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+    this.errorResponseWriter = errorResponseWriter;
+  }
+
+  @Override
+  public List<String> shortcutFieldOrder() {
+    return List.of("requiredRoles");
   }
 
   @Override
-  public GatewayFilter apply(Object config) {
-    return (exchange, chain) -> {
-      // Create a WebFilterChain adapter from GatewayFilterChain
-      WebFilterChain webFilterChain = webExchange -> chain.filter(exchange);
+  public ShortcutType shortcutType() {
+    return ShortcutType.GATHER_LIST;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    // Create a WebFilterChain adapter from GatewayFilterChain
+    return (exchange, chain) ->
+        jwtAuthenticationFilter.filter(
+            exchange, webExchange -> authorize(webExchange, chain, config));
+  }
+
+  private Mono<Void> authorize(
+      ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+    if (config.getRequiredRoles().isEmpty()) {
+      return chain.filter(exchange);
+    }
+    Authentication authentication =
+        exchange.getAttribute(JwtAuthenticationFilter.AUTHENTICATION_ATTRIBUTE);
+    if (authentication == null) {
+      return errorResponseWriter.write(
+          exchange, HttpStatus.UNAUTHORIZED, "Authentication required");
+    }
+    List<String> granted =
+        authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    boolean hasRoles =
+        config.getRequiredRoles().stream().allMatch(role -> granted.contains("ROLE_" + role));
+    if (!hasRoles) {
+      return errorResponseWriter.write(exchange, HttpStatus.FORBIDDEN, "Missing required role");
+    }
+    return chain.filter(exchange);
+  }
 
-      return jwtAuthenticationFilter.filter(exchange, webFilterChain);
-    };
+  /** Per-route configuration of the {@code Jwt} filter. */
+  @Getter
+  @Setter
+  public static class Config {
+    // every listed role must be granted to the caller; empty means any authenticated caller
+    private List<String> requiredRoles = new ArrayList<>();
   }
 }
@@ -0,0 +1,89 @@
+package vaultweb.apigateway.config;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+import vaultweb.apigateway.exceptions.RateLimitExceededException;
+import vaultweb.apigateway.service.auth.AuthMetrics.Operation;
+import vaultweb.apigateway.service.auth.LoginRateLimiter;
+
+import lombok.NonNull;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies the per-address login and registration limit ahead of the security chain, before the
+ * request body is read. The address is the connection's remote address; behind a proxy set {@code
+ * server.forward-headers-strategy} so that it reflects the original client.
+ */
+@Component
+public class LoginRateLimitFilter implements WebFilter, Ordered {
+  private static final String LOGIN_PATH = "/auth/login";
+  private static final String REGISTER_PATH = "/auth/register";
+
+  private final LoginRateLimiter rateLimiter;
+  private final ErrorResponseWriter errorResponseWriter;
+
+  public LoginRateLimitFilter(
+      LoginRateLimiter rateLimiter, ErrorResponseWriter errorResponseWriter) {
+    this.rateLimiter = rateLimiter;
+    this.errorResponseWriter = errorResponseWriter;
+  }
+
+  @Override
+  public int getOrder() {
+    // ahead of the Spring Security WebFilterChainProxy (-100)
+    return -200;
+  }
+
+  @Override
+  @NonNull
+  public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (request.getMethod() != HttpMethod.POST) {
+      return chain.filter(exchange);
+    }
+    String path = request.getPath().pathWithinApplication().value();
+    Operation operation;
+    if (LOGIN_PATH.equals(path)) {
+      operation = Operation.LOGIN;
+    } else if (REGISTER_PATH.equals(path)) {
+      operation = Operation.REGISTER;
+    } else {
+      return chain.filter(exchange);
+    }
+
+    Duration wait = rateLimiter.tryAcquireAddress(operation, clientAddress(request));
+    if (wait.isZero()) {
+      return chain.filter(exchange);
+    }
+    exchange
+        .getResponse()
+        .getHeaders()
+        .set(
+            HttpHeaders.RETRY_AFTER,
+            Long.toString(RateLimitExceededException.retryAfterSeconds(wait)));
+    return errorResponseWriter.write(
+        exchange, HttpStatus.TOO_MANY_REQUESTS, RateLimitExceededException.MESSAGE);
+  }
+
+  private static String clientAddress(ServerHttpRequest request) {
+    InetSocketAddress remote = request.getRemoteAddress();
+    if (remote == null) {
+      return "unknown";
+    }
+    return remote.getAddress() != null
+        ? remote.getAddress().getHostAddress()
+        : remote.getHostString();
+  }
+}
@@ -0,0 +1,125 @@
+package vaultweb.apigateway.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+import vaultweb.apigateway.service.RoutingService;
+
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Spring Cloud Gateway's routing filter, using the per-route connection pools of {@link
+ * RoutingService} and reporting failed backend calls as {@link DefaultException}s:
+ *
+ * <ul>
+ *   <li>connect, response and connection pool timeouts as {@link
+ *       DefaultExceptionLevels#TIMEOUT_EXCEPTION} (504),
+ *   <li>a full pending-acquire queue as {@link
+ *       DefaultExceptionLevels#SERVICE_UNAVAILABLE_EXCEPTION} (503),
+ *   <li>refused, reset or prematurely closed connections as {@link
+ *       DefaultExceptionLevels#HTTP_ERROR_EXCEPTION} (502).
+ * </ul>
+ *
+ * <p>Responses the backend did send, error statuses included, are passed through unchanged. The
+ * filter runs right before the default {@link NettyRoutingFilter}, which then skips the already
+ * routed exchange. The default one stays enabled because {@code NettyWriteResponseFilter} is only
+ * registered together with it. WebSocket upgrades are left to {@code WebsocketRoutingFilter}, which
+ * has the same order, so it does not matter which of the two runs first.
+ */
+@Component
+public class PerRouteNettyRoutingFilter extends NettyRoutingFilter {
+  /** reactor-pool's rejection when the pending-acquire queue is full, shaded into reactor-netty. */
+  private static final String PENDING_LIMIT_EXCEPTION = "PoolAcquirePendingLimitException";
+
+  private final RoutingService routingService;
+
+  public PerRouteNettyRoutingFilter(
+      HttpClient httpClient,
+      ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+      HttpClientProperties properties,
+      RoutingService routingService) {
+    super(httpClient, headersFilters, properties);
+    this.routingService = routingService;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    if ("websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())) {
+      return chain.filter(exchange);
+    }
+    return super.filter(exchange, chain)
+        .onErrorMap(
+            e -> upstreamErrorLevel(e) != null,
+            e -> {
+              Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+              String routeId = route != null ? route.getId() : "unknown";
+              DefaultExceptionLevels level = upstreamErrorLevel(e);
+              return new DefaultException(upstreamErrorMessage(level, routeId), level, e);
+            });
+  }
+
+  @Override
+  public int getOrder() {
+    return super.getOrder() - 1;
+  }
+
+  @Override
+  protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+    HttpClient httpClient = routingService.getHttpClient(route.getId());
+    return httpClient != null ? httpClient : super.getHttpClient(route, exchange);
+  }
+
+  /**
+   * Classifies a failed backend call.
+   *
+   * @param e the error of the backend call
+   * @return the level to report it with, or {@code null} to let it pass unchanged
+   */
+  static DefaultExceptionLevels upstreamErrorLevel(Throwable e) {
+    if (e instanceof ResponseStatusException statusException) {
+      // NettyRoutingFilter's own response timeout
+      return statusException.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT
+          ? DefaultExceptionLevels.TIMEOUT_EXCEPTION
+          : null;
+    }
+    if (e instanceof TimeoutException
+        || e instanceof ConnectTimeoutException
+        || e instanceof ReadTimeoutException) {
+      return DefaultExceptionLevels.TIMEOUT_EXCEPTION;
+    }
+    // matched by name, the shaded package is internal to reactor-netty
+    if (e.getClass().getSimpleName().equals(PENDING_LIMIT_EXCEPTION)) {
+      return DefaultExceptionLevels.SERVICE_UNAVAILABLE_EXCEPTION;
+    }
+    if (e instanceof IOException) {
+      return DefaultExceptionLevels.HTTP_ERROR_EXCEPTION;
+    }
+    return null;
+  }
+
+  private static String upstreamErrorMessage(DefaultExceptionLevels level, String routeId) {
+    return switch (level) {
+      case TIMEOUT_EXCEPTION -> "Upstream service " + routeId + " timed out";
+      case SERVICE_UNAVAILABLE_EXCEPTION -> "Upstream service " + routeId + " is overloaded";
+      default -> "Upstream service " + routeId + " is unavailable";
+    };
+  }
+}
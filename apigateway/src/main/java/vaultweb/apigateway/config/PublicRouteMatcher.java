@@ -0,0 +1,200 @@
+package vaultweb.apigateway.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compiled form of {@code auth.publicUrls}, shared by {@link SecurityConfig} and {@link
+ * JwtAuthenticationFilter}.
+ *
+ * <p>Entries are either a path pattern ({@code /auth/login}) or a method-qualified pattern ({@code
+ * GET /actuator/health}). Literal paths live in a hash map, wildcard patterns hang off a character
+ * trie keyed by their literal prefix, so a lookup walks the request path once and only evaluates
+ * the {@link PathPattern}s whose prefix matched. The rules are rebuilt when {@code auth.publicUrls}
+ * changes through a configuration refresh.
+ */
+@Component
+@Slf4j
+public class PublicRouteMatcher implements ServerWebExchangeMatcher {
+  private static final String PROPERTY = "auth.publicUrls";
+  private static final Mono<MatchResult> MATCH = MatchResult.match();
+  private static final Mono<MatchResult> NO_MATCH = MatchResult.notMatch();
+
+  private final Environment environment;
+  private volatile Rules rules;
+
+  public PublicRouteMatcher(Environment environment) {
+    this.environment = environment;
+    this.rules = compile(environment.getProperty(PROPERTY, String[].class, new String[0]));
+  }
+
+  /**
+   * Checks whether the request targets a public endpoint.
+   *
+   * @param request the incoming request
+   * @return true if no authentication is required
+   */
+  public boolean isPublic(ServerHttpRequest request) {
+    return rules.matches(request.getMethod(), request.getPath().pathWithinApplication());
+  }
+
+  @Override
+  @NonNull
+  public Mono<MatchResult> matches(@NonNull ServerWebExchange exchange) {
+    return isPublic(exchange.getRequest()) ? MATCH : NO_MATCH;
+  }
+
+  @EventListener
+  public void onEnvironmentChange(EnvironmentChangeEvent event) {
+    if (event.getKeys().stream().anyMatch(key -> key.startsWith(PROPERTY))) {
+      this.rules = compile(environment.getProperty(PROPERTY, String[].class, new String[0]));
+      log.info("Reloaded public endpoints from {}", PROPERTY);
+    }
+  }
+
+  static Rules compile(String[] entries) {
+    PathPatternParser parser = PathPatternParser.defaultInstance;
+    Set<String> anyMethodLiterals = new HashSet<>();
+    Map<String, Set<HttpMethod>> methodLiterals = new HashMap<>();
+    TrieNode root = new TrieNode();
+    for (String entry : entries) {
+      String trimmed = entry.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      HttpMethod method = null;
+      String pattern = trimmed;
+      int space = trimmed.indexOf(' ');
+      if (space > 0) {
+        method = HttpMethod.valueOf(trimmed.substring(0, space).toUpperCase());
+        pattern = trimmed.substring(space + 1).trim();
+      }
+
+      int wildcard = firstWildcard(pattern);
+      if (wildcard < 0) {
+        if (method == null) {
+          anyMethodLiterals.add(pattern);
+        } else {
+          methodLiterals.computeIfAbsent(pattern, key -> new HashSet<>()).add(method);
+        }
+        continue;
+      }
+      // anchor at the separator before the wildcard segment, "/a/**" must also match "/a"
+      String prefix = pattern.substring(0, Math.max(0, pattern.lastIndexOf('/', wildcard)));
+      root.insert(prefix).rules.add(new Rule(parser.parse(pattern), method));
+    }
+    Map<String, Set<HttpMethod>> frozenMethodLiterals = new HashMap<>();
+    methodLiterals.forEach((path, methods) -> frozenMethodLiterals.put(path, Set.copyOf(methods)));
+    return new Rules(
+        Set.copyOf(anyMethodLiterals), Map.copyOf(frozenMethodLiterals), root.freeze());
+  }
+
+  private static int firstWildcard(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '*' || c == '?' || c == '{') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Immutable snapshot of the compiled public routes. */
+  record Rules(
+      Set<String> anyMethodLiterals, Map<String, Set<HttpMethod>> methodLiterals, FrozenNode trie) {
+    boolean matches(HttpMethod method, PathContainer path) {
+      String value = path.value();
+      if (anyMethodLiterals.contains(value)) {
+        return true;
+      }
+      Set<HttpMethod> methods = methodLiterals.get(value);
+      if (methods != null && methods.contains(method)) {
+        return true;
+      }
+      FrozenNode node = trie;
+      for (int i = 0; ; i++) {
+        for (Rule rule : node.rules) {
+          if ((rule.method == null || rule.method == method) && rule.pattern.matches(path)) {
+            return true;
+          }
+        }
+        if (i == value.length()) {
+          return false;
+        }
+        node = node.child(value.charAt(i));
+        if (node == null) {
+          return false;
+        }
+      }
+    }
+  }
+
+  record Rule(PathPattern pattern, HttpMethod method) {}
+
+  /** Mutable trie node used while compiling. */
+  private static final class TrieNode {
+    private final Map<Character, TrieNode> children = new HashMap<>();
+    private final List<Rule> rules = new ArrayList<>();
+
+    TrieNode insert(String prefix) {
+      TrieNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), key -> new TrieNode());
+      }
+      return node;
+    }
+
+    FrozenNode freeze() {
+      char[] keys = new char[children.size()];
+      int index = 0;
+      for (Character key : children.keySet()) {
+        keys[index++] = key;
+      }
+      Arrays.sort(keys);
+      FrozenNode[] nodes = new FrozenNode[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        nodes[i] = children.get(keys[i]).freeze();
+      }
+      return new FrozenNode(keys, nodes, rules.toArray(new Rule[0]));
+    }
+  }
+
+  /** Array-backed trie node, looked up by binary search so matching never allocates. */
+  static final class FrozenNode {
+    private final char[] keys;
+    private final FrozenNode[] children;
+    private final Rule[] rules;
+
+    FrozenNode(char[] keys, FrozenNode[] children, Rule[] rules) {
+      this.keys = keys;
+      this.children = children;
+      this.rules = rules;
+    }
+
+    FrozenNode child(char c) {
+      int index = Arrays.binarySearch(keys, c);
+      return index < 0 ? null : children[index];
+    }
+  }
+}
@@ -1,8 +1,12 @@
 package vaultweb.apigateway.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ConditionalOnManagementPort;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
@@ -11,13 +15,13 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
-  @Value("${auth.publicUrls}")
-  public String[] publicEndpoints;
-
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
+  private final PublicRouteMatcher publicRouteMatcher;
 
-  public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+  public SecurityConfig(
+      JwtAuthenticationFilter jwtAuthenticationFilter, PublicRouteMatcher publicRouteMatcher) {
     this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+    this.publicRouteMatcher = publicRouteMatcher;
   }
 
   @Bean
@@ -25,10 +29,37 @@ public class SecurityConfig {
     return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
         .authorizeExchange(
             exchanges ->
-                exchanges.pathMatchers(publicEndpoints).permitAll().anyExchange().authenticated())
+                exchanges.matchers(publicRouteMatcher).permitAll().anyExchange().authenticated())
         .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
         .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
         .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
         .build();
   }
+
+  /**
+   * Leaves the actuator endpoints open on {@code management.server.port}, which is reachable from
+   * inside the cluster only (probes, Prometheus). On the public port they are not served at all.
+   * Without a separate management port this chain is not registered and actuator requires a token
+   * like any other path.
+   */
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @ConditionalOnManagementPort(ManagementPortType.DIFFERENT)
+  public SecurityWebFilterChain managementSecurityWebFilterChain(ServerHttpSecurity http) {
+    return http.securityMatcher(EndpointRequest.toAnyEndpoint())
+        .csrf(ServerHttpSecurity.CsrfSpec::disable)
+        .authorizeExchange(exchanges -> exchanges.anyExchange().permitAll())
+        // JwtAuthenticationFilter is also registered as a plain WebFilter and runs on this port too
+        .addFilterAt(
+            (exchange, chain) -> {
+              exchange
+                  .getAttributes()
+                  .put(JwtAuthenticationFilter.PUBLIC_ENDPOINT_ATTRIBUTE, Boolean.TRUE);
+              return chain.filter(exchange);
+            },
+            SecurityWebFiltersOrder.AUTHENTICATION)
+        .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+        .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+        .build();
+  }
 }
@@ -60,18 +60,21 @@ public class GatewayAuthController {
   }
 
   @PostMapping("change-username")
-  public String changeUsername() {
-    return "changeUsername";
+  public Mono<String> changeUsername() {
+    // the cached user is stale once the change is persisted
+    return authService.evictAuthenticatedUser().thenReturn("changeUsername");
   }
 
   @PostMapping("change-email")
-  public String changeEmail() {
-    return "changeEmail";
+  public Mono<String> changeEmail() {
+    // the cached user is stale once the change is persisted
+    return authService.evictAuthenticatedUser().thenReturn("changeEmail");
   }
 
   @PostMapping("change-password")
-  public String changePassword() {
-    return "changePassword";
+  public Mono<String> changePassword() {
+    // the cached user is stale once the change is persisted
+    return authService.evictAuthenticatedUser().thenReturn("changePassword");
   }
 
   @PostMapping("/reset-password")
@@ -1,3 +0,0 @@
-package vaultweb.apigateway.controller;
-
-public class GatewayPasswordManagerController {}
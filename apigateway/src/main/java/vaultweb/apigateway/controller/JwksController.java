@@ -0,0 +1,35 @@
+package vaultweb.apigateway.controller;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import vaultweb.apigateway.util.JwtKeyRing;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/** Publishes the public signing keys so backends can verify access tokens locally. */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+  private final JwtKeyRing keyRing;
+
+  @Value("${jwt.jwks.maxAge:300}") // seconds
+  private long maxAge;
+
+  @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<String>> jwks() {
+    String jwks = keyRing.jwksJson();
+    return Mono.just(
+        ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePublic())
+            .eTag(Integer.toHexString(jwks.hashCode()))
+            .body(jwks));
+  }
+}
@@ -56,4 +56,17 @@ public class DefaultException extends Exception {
     super(message, cause);
     this.level = level;
   }
+
+  /**
+   * Constructs a new Default exception that may skip filling in its stack trace.
+   *
+   * @param message the detail message
+   * @param level the severity level of the exception
+   * @param writableStackTrace whether the stack trace is captured
+   */
+  protected DefaultException(
+      String message, DefaultExceptionLevels level, boolean writableStackTrace) {
+    super(message, null, true, writableStackTrace);
+    this.level = level;
+  }
 }
@@ -0,0 +1,42 @@
+package vaultweb.apigateway.exceptions;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles {@link DefaultException}s raised outside of controllers, e.g. by the routing filter when
+ * a backend times out, exactly like {@link GlobalExceptionHandler} does for controllers. Other
+ * exceptions are left to Spring Boot's error handling.
+ */
+@Component
+@RequiredArgsConstructor
+public class DefaultExceptionWebHandler implements WebExceptionHandler, Ordered {
+  private final GlobalExceptionHandler globalExceptionHandler;
+
+  @Override
+  public int getOrder() {
+    // ahead of Spring Boot's DefaultErrorWebExceptionHandler (-1)
+    return -2;
+  }
+
+  @Override
+  @NonNull
+  public Mono<Void> handle(@NonNull ServerWebExchange exchange, @NonNull Throwable ex) {
+    if (exchange.getResponse().isCommitted()) {
+      return Mono.error(ex);
+    }
+    if (ex instanceof RateLimitExceededException rateLimitExceeded) {
+      return globalExceptionHandler.handleRateLimitExceeded(rateLimitExceeded, exchange);
+    }
+    if (ex instanceof DefaultException defaultException) {
+      return globalExceptionHandler.handleDefaultException(defaultException, exchange);
+    }
+    return Mono.error(ex);
+  }
+}
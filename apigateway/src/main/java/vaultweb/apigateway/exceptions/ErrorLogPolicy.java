@@ -0,0 +1,86 @@
+package vaultweb.apigateway.exceptions;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.event.Level;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Decides per {@link DefaultExceptionLevels} whether a handled {@link DefaultException} is logged.
+ *
+ * <p>Every occurrence is counted in {@code auth.errors{level}}, so the counters carry the volume
+ * and the logs only need examples. Each level has a log level, {@code OFF} included, and the share
+ * of occurrences that get logged, configured as {@code auth.errorLogging.<LEVEL>.level} and {@code
+ * auth.errorLogging.<LEVEL>.sampleRate}, e.g. {@code auth.errorLogging.AUTHENTICATION_EXCEPTION}.
+ */
+@Component
+public class ErrorLogPolicy {
+  private final Map<DefaultExceptionLevels, Rule> rules =
+      new EnumMap<>(DefaultExceptionLevels.class);
+
+  public ErrorLogPolicy(Environment environment, MeterRegistry meterRegistry) {
+    for (DefaultExceptionLevels level : DefaultExceptionLevels.values()) {
+      Rule defaults = defaultRule(level);
+      String prefix = "auth.errorLogging." + level.name() + ".";
+      String logLevel = environment.getProperty(prefix + "level");
+      double sampleRate =
+          environment.getProperty(prefix + "sampleRate", Double.class, defaults.sampleRate);
+      rules.put(
+          level,
+          new Rule(
+              logLevel == null ? defaults.logLevel : parseLevel(logLevel),
+              Math.max(0, Math.min(1, sampleRate)),
+              Counter.builder("auth.errors")
+                  .description("Handled DefaultExceptions, by level")
+                  .tag("level", level.name().toLowerCase(Locale.ROOT))
+                  .register(meterRegistry)));
+    }
+  }
+
+  /** Routine client failures are sampled, failures of the gateway or upstreams are all logged. */
+  private static Rule defaultRule(DefaultExceptionLevels level) {
+    return switch (level) {
+      case AUTHENTICATION_EXCEPTION, AUTHORIZATION_EXCEPTION, DUPLICATE_EXCEPTION ->
+          new Rule(Level.INFO, 0.01, null);
+      case TOO_MANY_REQUESTS_EXCEPTION -> new Rule(Level.WARN, 0.01, null);
+      case SERVICE_UNAVAILABLE_EXCEPTION -> new Rule(Level.WARN, 0.1, null);
+      case TIMEOUT_EXCEPTION, HTTP_ERROR_EXCEPTION, PARSE_EXCEPTION ->
+          new Rule(Level.WARN, 1, null);
+      default -> new Rule(Level.ERROR, 1, null);
+    };
+  }
+
+  private static Level parseLevel(String value) {
+    String name = value.trim().toUpperCase(Locale.ROOT);
+    return "OFF".equals(name) ? null : Level.valueOf(name);
+  }
+
+  /**
+   * Counts the exception and decides whether this occurrence is logged.
+   *
+   * @param ex the handled exception
+   * @return the level to log at, or {@code null} to skip logging
+   */
+  public Level record(DefaultException ex) {
+    Rule rule =
+        rules.get(ex.getLevel() != null ? ex.getLevel() : DefaultExceptionLevels.DEFAULT_EXCEPTION);
+    rule.counter.increment();
+    if (rule.logLevel == null
+        || rule.sampleRate <= 0
+        || (rule.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= rule.sampleRate)) {
+      return null;
+    }
+    return rule.logLevel;
+  }
+
+  private record Rule(Level logLevel, double sampleRate, Counter counter) {}
+}
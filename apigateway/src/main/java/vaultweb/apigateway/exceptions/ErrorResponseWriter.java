@@ -0,0 +1,180 @@
+package vaultweb.apigateway.exceptions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes the JSON error body shared by all gateway errors:
+ *
+ * <pre>{"message":"...","timestamp":"2025-01-31T12:00:00.000+00:00","path":"...","errorCode":"401
+ * UNAUTHORIZED"}</pre>
+ *
+ * <p>Rejections by the JWT filter can make up a large share of all responses, so the body is
+ * written straight into a buffer from the response's (pooled) buffer factory. The constant parts
+ * and the error codes are encoded once, the timestamp prefix once per second; only the message and
+ * the path are encoded per response, with JSON escaping.
+ */
+@Component
+public class ErrorResponseWriter {
+  private static final byte[] MESSAGE = ascii("{\"message\":\"");
+  private static final byte[] TIMESTAMP = ascii("\",\"timestamp\":\"");
+  private static final byte[] PATH = ascii("\",\"path\":\"");
+  private static final byte[] ERROR_CODE = ascii("\",\"errorCode\":\"");
+  private static final byte[] END = ascii("\"}");
+  // what Jackson writes for java.util.Date in UTC
+  private static final byte[] UTC_OFFSET = ascii("+00:00");
+  private static final byte[] HEX = ascii("0123456789abcdef");
+  private static final int FIXED_LENGTH =
+      MESSAGE.length
+          + TIMESTAMP.length
+          + PATH.length
+          + ERROR_CODE.length
+          + END.length
+          + 29 // timestamp
+          + 32; // error code
+
+  private static final Map<HttpStatus, byte[]> ERROR_CODES = new EnumMap<>(HttpStatus.class);
+
+  static {
+    for (HttpStatus status : HttpStatus.values()) {
+      ERROR_CODES.put(status, ascii(status.toString()));
+    }
+  }
+
+  private volatile TimestampPrefix timestampPrefix = TimestampPrefix.of(0);
+
+  /**
+   * Completes the response with the given status and the JSON error body.
+   *
+   * @param exchange the current exchange
+   * @param status the response status, also written as the {@code errorCode}
+   * @param message the error message
+   * @return a {@link Mono} that completes once the body is written
+   */
+  public Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String message) {
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(status);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    String path = exchange.getRequest().getURI().getPath();
+    // allocated on subscription, so a cancelled write does not leave a pooled buffer behind
+    return response.writeWith(Mono.fromSupplier(() -> encode(response, status, message, path)));
+  }
+
+  private DataBuffer encode(
+      ServerHttpResponse response, HttpStatus status, String message, String path) {
+    String safeMessage = message == null ? "" : message;
+    String safePath = path == null ? "" : path;
+    DataBuffer buffer =
+        response
+            .bufferFactory()
+            .allocateBuffer(FIXED_LENGTH + safeMessage.length() + safePath.length());
+    buffer.write(MESSAGE);
+    writeEscaped(buffer, safeMessage);
+    buffer.write(TIMESTAMP);
+    writeTimestamp(buffer, System.currentTimeMillis());
+    buffer.write(PATH);
+    writeEscaped(buffer, safePath);
+    buffer.write(ERROR_CODE);
+    buffer.write(ERROR_CODES.get(status));
+    buffer.write(END);
+    return buffer;
+  }
+
+  private void writeTimestamp(DataBuffer buffer, long epochMillis) {
+    long epochSecond = Math.floorDiv(epochMillis, 1000);
+    TimestampPrefix prefix = timestampPrefix;
+    if (prefix.epochSecond != epochSecond) {
+      prefix = TimestampPrefix.of(epochSecond);
+      timestampPrefix = prefix;
+    }
+    int millis = (int) Math.floorMod(epochMillis, 1000);
+    buffer.write(prefix.bytes);
+    buffer.write((byte) ('0' + millis / 100));
+    buffer.write((byte) ('0' + millis / 10 % 10));
+    buffer.write((byte) ('0' + millis % 10));
+    buffer.write(UTC_OFFSET);
+  }
+
+  /** Writes the value as the UTF-8 content of a JSON string, escaped as RFC 8259 requires. */
+  static void writeEscaped(DataBuffer buffer, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c < 0x80) {
+        if (c == '"' || c == '\\') {
+          buffer.write((byte) '\\');
+        }
+        buffer.write((byte) c);
+      } else if (c < 0x20) {
+        writeControl(buffer, c);
+      } else if (c < 0x800) {
+        buffer.write((byte) (0xc0 | c >> 6));
+        buffer.write((byte) (0x80 | c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buffer.write((byte) (0xf0 | codePoint >> 18));
+        buffer.write((byte) (0x80 | codePoint >> 12 & 0x3f));
+        buffer.write((byte) (0x80 | codePoint >> 6 & 0x3f));
+        buffer.write((byte) (0x80 | codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        buffer.write((byte) '?'); // unpaired, like String.getBytes(UTF_8)
+      } else {
+        buffer.write((byte) (0xe0 | c >> 12));
+        buffer.write((byte) (0x80 | c >> 6 & 0x3f));
+        buffer.write((byte) (0x80 | c & 0x3f));
+      }
+    }
+  }
+
+  private static void writeControl(DataBuffer buffer, char c) {
+    buffer.write((byte) '\\');
+    switch (c) {
+      case '\n' -> buffer.write((byte) 'n');
+      case '\r' -> buffer.write((byte) 'r');
+      case '\t' -> buffer.write((byte) 't');
+      case '\b' -> buffer.write((byte) 'b');
+      case '\f' -> buffer.write((byte) 'f');
+      default -> {
+        buffer.write((byte) 'u');
+        buffer.write((byte) '0');
+        buffer.write((byte) '0');
+        buffer.write(HEX[c >> 4]);
+        buffer.write(HEX[c & 0xf]);
+      }
+    }
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /** {@code yyyy-MM-ddTHH:mm:ss.} of one second in UTC. */
+  private record TimestampPrefix(long epochSecond, byte[] bytes) {
+    static TimestampPrefix of(long epochSecond) {
+      LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+      String text =
+          String.format(
+              "%04d-%02d-%02dT%02d:%02d:%02d.",
+              time.getYear(),
+              time.getMonthValue(),
+              time.getDayOfMonth(),
+              time.getHour(),
+              time.getMinute(),
+              time.getSecond());
+      return new TimestampPrefix(epochSecond, ascii(text));
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package vaultweb.apigateway.exceptions;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+/**
+ * A {@link DefaultException} for routine outcomes such as a wrong password or an expired refresh
+ * token. It captures no stack trace, which would only point at the same few lines every time, so
+ * creating one costs about as much as any other small object.
+ */
+public class ExpectedFailureException extends DefaultException {
+
+  /**
+   * Constructs a new expected failure.
+   *
+   * @param message the detail message
+   * @param level the severity level of the exception
+   */
+  public ExpectedFailureException(String message, DefaultExceptionLevels level) {
+    super(message, level, false);
+  }
+}
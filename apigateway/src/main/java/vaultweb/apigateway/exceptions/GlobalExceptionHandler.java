@@ -1,59 +1,73 @@
 package vaultweb.apigateway.exceptions;
 
-import java.sql.Timestamp;
 import java.util.stream.Collectors;
 
+import org.slf4j.event.Level;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
 
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
 /**
  * Global exception handler for the API Gateway. Catches and processes various exceptions, returning
- * appropriate HTTP responses.
+ * appropriate HTTP responses. The bodies are written by {@link ErrorResponseWriter}, in the same
+ * format as the JWT filter's rejections. {@link DefaultException}s are counted and logged as the
+ * {@link ErrorLogPolicy} configures for their level.
  *
  * @author Calvin Shio
  */
 @ControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+  private final ErrorResponseWriter errorResponseWriter;
+  private final ErrorLogPolicy errorLogPolicy;
 
   @ExceptionHandler(JsonProcessingException.class)
-  Mono<ResponseEntity<ErrorResponse>> handleJsonProcessing(
-      JsonProcessingException ex, ServerHttpRequest request) {
+  Mono<Void> handleJsonProcessing(JsonProcessingException ex, ServerWebExchange exchange) {
     log.error(ex.getMessage(), ex);
-    return Mono.just(
-        ResponseEntity.status(HttpStatus.BAD_REQUEST)
-            .body(
-                new ErrorResponse(
-                    ex.getOriginalMessage(),
-                    new Timestamp(System.currentTimeMillis()),
-                    request.getURI().getPath(),
-                    HttpStatus.BAD_REQUEST.toString())));
+    return errorResponseWriter.write(exchange, HttpStatus.BAD_REQUEST, ex.getOriginalMessage());
   }
 
   @ExceptionHandler(DefaultException.class)
-  Mono<ResponseEntity<ErrorResponse>> handleDefaultException(
-      DefaultException ex, ServerHttpRequest request) {
-    log.error(ex.getMessage(), ex);
-    HttpStatus status = mapExceptionLevelToHttpStatus(ex.getLevel());
-    return Mono.just(
-        ResponseEntity.status(status)
-            .body(
-                new ErrorResponse(
-                    ex.getMessage(),
-                    new Timestamp(System.currentTimeMillis()),
-                    request.getURI().getPath(),
-                    status.toString())));
+  Mono<Void> handleDefaultException(DefaultException ex, ServerWebExchange exchange) {
+    logDefaultException(ex, exchange);
+    return errorResponseWriter.write(
+        exchange, mapExceptionLevelToHttpStatus(ex.getLevel()), ex.getMessage());
+  }
+
+  @ExceptionHandler(RateLimitExceededException.class)
+  Mono<Void> handleRateLimitExceeded(RateLimitExceededException ex, ServerWebExchange exchange) {
+    logDefaultException(ex, exchange);
+    exchange
+        .getResponse()
+        .getHeaders()
+        .set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+    return errorResponseWriter.write(exchange, HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+  }
+
+  /**
+   * Logs the exception as the {@link ErrorLogPolicy} decides for its level. Stackless {@link
+   * ExpectedFailureException}s are logged as a single line.
+   */
+  private void logDefaultException(DefaultException ex, ServerWebExchange exchange) {
+    Level level = errorLogPolicy.record(ex);
+    if (level == null || !log.isEnabledForLevel(level)) {
+      return;
+    }
+    log.atLevel(level)
+        .setCause(ex.getStackTrace().length > 0 ? ex : null)
+        .log("{} {} {}", ex.getLevel(), exchange.getRequest().getURI().getPath(), ex.getMessage());
   }
 
   /** Maps DefaultException level to appropriate HttpStatus. */
@@ -63,43 +77,31 @@ public class GlobalExceptionHandler {
     }
     return switch (level) {
       case DefaultExceptionLevels.AUTHENTICATION_EXCEPTION -> HttpStatus.UNAUTHORIZED;
+      case DefaultExceptionLevels.AUTHORIZATION_EXCEPTION -> HttpStatus.FORBIDDEN;
+      case DefaultExceptionLevels.DUPLICATE_EXCEPTION -> HttpStatus.BAD_REQUEST;
       case DefaultExceptionLevels.TIMEOUT_EXCEPTION -> HttpStatus.GATEWAY_TIMEOUT;
       case DefaultExceptionLevels.HTTP_ERROR_EXCEPTION -> HttpStatus.BAD_GATEWAY;
+      case DefaultExceptionLevels.TOO_MANY_REQUESTS_EXCEPTION -> HttpStatus.TOO_MANY_REQUESTS;
+      case DefaultExceptionLevels.SERVICE_UNAVAILABLE_EXCEPTION -> HttpStatus.SERVICE_UNAVAILABLE;
       default -> HttpStatus.BAD_REQUEST;
     };
   }
 
   @ExceptionHandler(ConstraintViolationException.class)
-  Mono<ResponseEntity<ErrorResponse>> handleConstraintViolation(
-      ConstraintViolationException ex, ServerHttpRequest request) {
+  Mono<Void> handleConstraintViolation(
+      ConstraintViolationException ex, ServerWebExchange exchange) {
     log.error(ex.getMessage(), ex);
     String message =
         ex.getConstraintViolations().stream()
             .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
             .collect(Collectors.joining(", "));
 
-    return Mono.just(
-        ResponseEntity.status(HttpStatus.BAD_REQUEST)
-            .body(
-                new ErrorResponse(
-                    message,
-                    new Timestamp(System.currentTimeMillis()),
-                    request.getURI().getPath(),
-                    HttpStatus.BAD_REQUEST.toString())));
+    return errorResponseWriter.write(exchange, HttpStatus.BAD_REQUEST, message);
   }
 
   @ExceptionHandler(Exception.class)
-  Mono<ResponseEntity<ErrorResponse>> handleGeneric(Exception ex, ServerHttpRequest request) {
+  Mono<Void> handleGeneric(Exception ex, ServerWebExchange exchange) {
     log.error(ex.getMessage(), ex);
-    return Mono.just(
-        ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-            .body(
-                new ErrorResponse(
-                    ex.getMessage(),
-                    new Timestamp(System.currentTimeMillis()),
-                    request.getURI().getPath(),
-                    HttpStatus.INTERNAL_SERVER_ERROR.toString())));
+    return errorResponseWriter.write(exchange, HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
   }
-
-  record ErrorResponse(String message, Timestamp timestamp, String path, String errorCode) {}
 }
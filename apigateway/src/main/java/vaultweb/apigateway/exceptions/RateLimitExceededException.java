@@ -0,0 +1,35 @@
+package vaultweb.apigateway.exceptions;
+
+import java.time.Duration;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import lombok.Getter;
+
+/** Thrown when a caller exceeded a rate limit; answered with 429 and a {@code Retry-After}. */
+@Getter
+public class RateLimitExceededException extends ExpectedFailureException {
+  public static final String MESSAGE = "Too many attempts, please try again later";
+
+  private final Duration retryAfter;
+
+  public RateLimitExceededException(Duration retryAfter) {
+    super(MESSAGE, DefaultExceptionLevels.TOO_MANY_REQUESTS_EXCEPTION);
+    this.retryAfter = retryAfter;
+  }
+
+  /** Returns the {@code Retry-After} value in whole seconds, rounded up. */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds(retryAfter);
+  }
+
+  /**
+   * Converts a wait time to a {@code Retry-After} value.
+   *
+   * @param wait the time until the next attempt is admitted
+   * @return the wait in whole seconds, rounded up and at least 1
+   */
+  public static long retryAfterSeconds(Duration wait) {
+    return Math.max(1, (wait.toMillis() + 999) / 1000);
+  }
+}
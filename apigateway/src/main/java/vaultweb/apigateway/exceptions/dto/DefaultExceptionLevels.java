@@ -8,12 +8,20 @@ package vaultweb.apigateway.exceptions.dto;
 public enum DefaultExceptionLevels {
   // On failure to get-access-tokens and verification
   AUTHENTICATION_EXCEPTION,
+  // when an authenticated caller lacks a role required by the route
+  AUTHORIZATION_EXCEPTION,
   // when the request to other services times out
   TIMEOUT_EXCEPTION,
   // when the request to other services fails with an HTTP error eg 404, 500, etc
   HTTP_ERROR_EXCEPTION,
   // when payload or response payload could not be parsed
   PARSE_EXCEPTION,
+  // when a registration clashes with an existing user, e.g. an email that is already taken
+  DUPLICATE_EXCEPTION,
+  // when a caller exceeds a rate limit, e.g. repeated login attempts
+  TOO_MANY_REQUESTS_EXCEPTION,
+  // when the gateway sheds load because a bounded resource (e.g. password hashing) is saturated
+  SERVICE_UNAVAILABLE_EXCEPTION,
   // default exception for any other errors
   DEFAULT_EXCEPTION,
 }
@@ -3,6 +3,7 @@ package vaultweb.apigateway.model;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -24,8 +25,10 @@ public class RefreshToken {
   @Column("user_id")
   private Integer userId; // Store foreign key as primitive type, no @OneToOne
 
-  @Column("token")
-  private String token;
+  @Column("token_hash")
+  private byte[] tokenHash; // SHA-256 of the token, the raw value is never persisted
+
+  @Transient private String token; // raw token, only known right after it was issued
 
   @Column("expiry_date")
   private Instant expiryDate;
@@ -0,0 +1,10 @@
+package vaultweb.apigateway.model;
+
+/**
+ * Outcome of rotating a presented refresh token in one statement.
+ *
+ * @param expired true if the presented token had expired and was deleted instead of rotated
+ * @param user the owner of the rotated token, {@code null} if nothing was rotated
+ * @param token the newly issued refresh token
+ */
+public record RefreshTokenRotation(boolean expired, User user, String token) {}
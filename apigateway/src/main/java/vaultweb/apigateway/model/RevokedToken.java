@@ -0,0 +1,29 @@
+package vaultweb.apigateway.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Table(name = "revoked_tokens")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class RevokedToken {
+  @Id private String jti;
+
+  @Column("expires_at")
+  private Instant expiresAt; // the token's exp, the row is useless afterwards
+
+  @Column("revoked_at")
+  private Instant revokedAt;
+}
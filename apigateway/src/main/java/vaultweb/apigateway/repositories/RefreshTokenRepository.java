@@ -1,5 +1,8 @@
 package vaultweb.apigateway.repositories;
 
+import java.time.Instant;
+
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,8 +11,26 @@ import vaultweb.apigateway.model.RefreshToken;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface RefreshTokenRepository extends ReactiveCrudRepository<RefreshToken, Long> {
+public interface RefreshTokenRepository
+    extends ReactiveCrudRepository<RefreshToken, Long>, RefreshTokenRepositoryCustom {
   Mono<Void> deleteByUserId(Integer userId);
 
-  Mono<RefreshToken> findByToken(String token);
+  /**
+   * Inserts the refresh token digest of a user, replacing any existing one, in a single statement.
+   * Relies on the unique index on {@code refresh_tokens(user_id)}.
+   *
+   * @return the stored row
+   */
+  @Query(
+      """
+      INSERT INTO refresh_tokens (user_id, token_hash, expiry_date, created_at)
+      VALUES (:userId, :tokenHash, :expiryDate, :createdAt)
+      ON CONFLICT (user_id) DO UPDATE
+          SET token_hash = EXCLUDED.token_hash,
+              expiry_date = EXCLUDED.expiry_date,
+              created_at = EXCLUDED.created_at
+      RETURNING *
+      """)
+  Mono<RefreshToken> upsertForUser(
+      Integer userId, byte[] tokenHash, Instant expiryDate, Instant createdAt);
 }
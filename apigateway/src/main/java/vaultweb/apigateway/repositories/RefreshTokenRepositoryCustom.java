@@ -0,0 +1,26 @@
+package vaultweb.apigateway.repositories;
+
+import java.time.Instant;
+
+import vaultweb.apigateway.model.RefreshTokenRotation;
+
+import reactor.core.publisher.Mono;
+
+/** Refresh token statements that cannot be expressed as derived or annotated queries. */
+public interface RefreshTokenRepositoryCustom {
+
+  /**
+   * Atomically swaps a presented refresh token for a new one and returns its owner.
+   *
+   * <p>Expiry is checked in the same statement: an expired token is deleted instead of rotated. If
+   * two requests present the same token concurrently only one of them rotates it.
+   *
+   * @param tokenHash the digest of the presented refresh token
+   * @param newToken the refresh token replacing it, only its digest is stored
+   * @param newExpiryDate the expiry of the new token
+   * @param now the current time
+   * @return the rotation outcome, or empty if the token is unknown
+   */
+  Mono<RefreshTokenRotation> rotate(
+      byte[] tokenHash, String newToken, Instant newExpiryDate, Instant now);
+}
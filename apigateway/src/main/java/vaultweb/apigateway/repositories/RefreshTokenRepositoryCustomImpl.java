@@ -0,0 +1,70 @@
+package vaultweb.apigateway.repositories;
+
+import java.time.Instant;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import vaultweb.apigateway.model.RefreshTokenRotation;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.util.TokenDigest;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class RefreshTokenRepositoryCustomImpl implements RefreshTokenRepositoryCustom {
+  // the token_hash predicate is repeated in the data-modifying CTEs so a concurrent rotation of the
+  // same row is re-checked after the row lock and loses instead of rotating twice
+  private static final String ROTATE =
+      """
+      WITH presented AS (
+          SELECT id, expiry_date <= :now AS expired
+            FROM refresh_tokens
+           WHERE token_hash = :tokenHash
+      ), rotated AS (
+          UPDATE refresh_tokens r
+             SET token_hash = :newTokenHash, expiry_date = :newExpiryDate, created_at = :now
+            FROM presented p
+           WHERE r.id = p.id AND r.token_hash = :tokenHash AND NOT p.expired
+          RETURNING r.user_id
+      ), purged AS (
+          DELETE FROM refresh_tokens r
+           USING presented p
+           WHERE r.id = p.id AND r.token_hash = :tokenHash AND p.expired
+      )
+      SELECT p.expired, u.id, u.name, u.username, u.email, u.password
+        FROM presented p
+        LEFT JOIN rotated ro ON TRUE
+        LEFT JOIN users u ON u.id = ro.user_id
+      """;
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<RefreshTokenRotation> rotate(
+      byte[] tokenHash, String newToken, Instant newExpiryDate, Instant now) {
+    return databaseClient
+        .sql(ROTATE)
+        .bind("tokenHash", tokenHash)
+        .bind("newTokenHash", TokenDigest.sha256(newToken))
+        .bind("newExpiryDate", newExpiryDate)
+        .bind("now", now)
+        .map(
+            row -> {
+              Integer userId = row.get("id", Integer.class);
+              User user =
+                  userId == null
+                      ? null
+                      : User.builder()
+                          .id(userId)
+                          .name(row.get("name", String.class))
+                          .username(row.get("username", String.class))
+                          .email(row.get("email", String.class))
+                          .password(row.get("password", String.class))
+                          .build();
+              return new RefreshTokenRotation(
+                  Boolean.TRUE.equals(row.get("expired", Boolean.class)), user, newToken);
+            })
+        .one();
+  }
+}
@@ -0,0 +1,29 @@
+package vaultweb.apigateway.repositories;
+
+import java.time.Instant;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import vaultweb.apigateway.model.RevokedToken;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface RevokedTokenRepository extends ReactiveCrudRepository<RevokedToken, String> {
+  /**
+   * Records a revocation. The insert trigger notifies every gateway node; revoking the same token
+   * twice is a no-op.
+   */
+  @Query(
+      """
+      INSERT INTO revoked_tokens (jti, expires_at)
+      VALUES (:jti, :expiresAt)
+      ON CONFLICT (jti) DO NOTHING
+      """)
+  Mono<Void> revoke(String jti, Instant expiresAt);
+
+  Flux<RevokedToken> findByExpiresAtAfter(Instant now);
+}
@@ -1,5 +1,7 @@
 package vaultweb.apigateway.repositories;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
 import vaultweb.apigateway.model.User;
@@ -7,11 +9,32 @@ import vaultweb.apigateway.model.User;
 import reactor.core.publisher.Mono;
 
 public interface UserRepository extends ReactiveCrudRepository<User, Integer> {
-  Mono<Boolean> existsByEmail(String email);
-
-  Mono<Boolean> existsByUsername(String username);
-
-  Mono<User> findByEmailOrUsername(String email, String username);
+  /**
+   * Finds the user whose email or username equals the login, ignoring case. Each branch is a probe
+   * of its own unique {@code lower()} index; an {@code OR} across both columns would not use them.
+   * An email match wins over a username match: {@code UNION ALL} alone does not guarantee the order
+   * of its branches, so each row carries the priority of its branch and is sorted by it.
+   */
+  @Query(
+      """
+      (SELECT *, 0 AS priority FROM users WHERE lower(email) = lower(:login))
+      UNION ALL
+      (SELECT *, 1 AS priority FROM users WHERE lower(username) = lower(:login))
+      ORDER BY priority
+      LIMIT 1
+      """)
+  Mono<User> findByLogin(String login);
 
+  @Query("SELECT * FROM users WHERE lower(username) = lower(:username)")
   Mono<User> findByUsername(String username);
+
+  /**
+   * Replaces the password hash only if it still is {@code currentHash}, so a rehash never
+   * overwrites a password changed in the meantime.
+   *
+   * @return the number of updated rows, 0 or 1
+   */
+  @Modifying
+  @Query("UPDATE users SET password = :newHash WHERE id = :id AND password = :currentHash")
+  Mono<Integer> replacePasswordHash(Integer id, String currentHash, String newHash);
 }
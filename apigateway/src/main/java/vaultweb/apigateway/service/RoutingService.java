@@ -1,3 +1,238 @@
 package vaultweb.apigateway.service;
 
-public class RoutingService {}
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import vaultweb.apigateway.config.JwtGatewayFilterFactory;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Builds the routes to the downstream services from the route table in {@code gateway.routes}.
+ *
+ * <p>Each route gets its own reactor-netty connection pool, so a slow backend can only tie up its
+ * own connections: once its pool is busy, further requests for it wait up to {@code
+ * pool.pendingAcquireTimeout} in a bounded queue and are rejected beyond that, while the other
+ * routes keep their connections. Every route requires a valid access token through the {@code Jwt}
+ * filter, optionally with roles, and has its own connect and response timeout. Apart from the pool
+ * and the connect timeout, a route's client is configured exactly like the shared gateway client:
+ * {@code spring.cloud.gateway.server.webflux.httpclient} (SSL, proxy, wiretap, header sizes,
+ * compression) and every {@link HttpClientCustomizer} apply to it.
+ *
+ * <p>Routes from {@code spring.cloud.gateway.server.webflux.routes} still work and use the shared
+ * client of Spring Cloud Gateway.
+ */
+@Service
+@Slf4j
+public class RoutingService implements RouteLocator, DisposableBean {
+  private static final String PROPERTY = "gateway.routes";
+
+  private final Map<String, Backend> backendsByRouteId = new HashMap<>();
+  private final RouteLocator routes;
+
+  public RoutingService(
+      Environment environment,
+      RouteLocatorBuilder routeLocatorBuilder,
+      JwtGatewayFilterFactory jwtGatewayFilterFactory,
+      HttpClientProperties httpClientProperties,
+      ServerProperties serverProperties,
+      HttpClientSslConfigurer sslConfigurer,
+      ObjectProvider<HttpClientCustomizer> customizers) {
+    List<HttpClientCustomizer> httpClientCustomizers = customizers.orderedStream().toList();
+    List<RouteProperties> table =
+        Binder.get(environment)
+            .bind(PROPERTY, Bindable.listOf(RouteProperties.class))
+            .orElseGet(List::of);
+
+    RouteLocatorBuilder.Builder builder = routeLocatorBuilder.routes();
+    for (RouteProperties route : table) {
+      if (backendsByRouteId.containsKey(route.id())) {
+        throw new IllegalStateException("Duplicate gateway route id " + route.id());
+      }
+      backendsByRouteId.put(
+          route.id(),
+          new Backend(
+              route, httpClientProperties, serverProperties, sslConfigurer, httpClientCustomizers));
+
+      JwtGatewayFilterFactory.Config jwt = new JwtGatewayFilterFactory.Config();
+      jwt.setRequiredRoles(route.requiredRoles());
+      builder.route(
+          route.id(),
+          spec ->
+              spec.path(route.paths().toArray(String[]::new))
+                  .filters(
+                      filters -> {
+                        if (route.stripPrefix() > 0) {
+                          filters.stripPrefix(route.stripPrefix());
+                        }
+                        return filters.filter(jwtGatewayFilterFactory.apply(jwt));
+                      })
+                  // read by NettyRoutingFilter, which answers with 504 after the response timeout
+                  .metadata(
+                      RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, route.responseTimeout().toMillis())
+                  .metadata(
+                      RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, route.connectTimeout().toMillis())
+                  .uri(route.uri()));
+      log.info(
+          "Route {} {} -> {} (max {} connections, response timeout {})",
+          route.id(),
+          route.paths(),
+          route.uri(),
+          route.pool().maxConnections(),
+          route.responseTimeout());
+    }
+    this.routes = builder.build();
+  }
+
+  @Override
+  public Flux<Route> getRoutes() {
+    return routes.getRoutes();
+  }
+
+  /**
+   * Returns the HTTP client with the connection pool of the given route.
+   *
+   * @param routeId the route id
+   * @return the route's client, or {@code null} for routes not defined in {@code gateway.routes}
+   */
+  public HttpClient getHttpClient(String routeId) {
+    Backend backend = backendsByRouteId.get(routeId);
+    return backend != null ? backend.httpClient : null;
+  }
+
+  @Override
+  public void destroy() {
+    backendsByRouteId.values().forEach(backend -> backend.connectionProvider.dispose());
+  }
+
+  /** One route's connection pool and the client using it. */
+  private static final class Backend {
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient httpClient;
+
+    Backend(
+        RouteProperties route,
+        HttpClientProperties properties,
+        ServerProperties serverProperties,
+        HttpClientSslConfigurer sslConfigurer,
+        List<HttpClientCustomizer> customizers) {
+      PoolProperties pool = route.pool();
+      this.connectionProvider =
+          ConnectionProvider.builder("gateway-" + route.id())
+              .maxConnections(pool.maxConnections())
+              .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+              .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+              .maxIdleTime(pool.maxIdleTime())
+              .maxLifeTime(pool.maxLifeTime())
+              .evictInBackground(pool.evictInBackground())
+              // reactor.netty.connection.provider.* gauges, tagged with the pool name
+              .metrics(true)
+              .build();
+      this.httpClient =
+          new RouteHttpClientFactory(
+                  properties, serverProperties, sslConfigurer, customizers, connectionProvider)
+              .createInstance()
+              .option(
+                  ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) route.connectTimeout().toMillis());
+    }
+  }
+
+  /** Builds the gateway's {@link HttpClient} configuration on top of one route's pool. */
+  private static final class RouteHttpClientFactory extends HttpClientFactory {
+    private final ConnectionProvider connectionProvider;
+
+    RouteHttpClientFactory(
+        HttpClientProperties properties,
+        ServerProperties serverProperties,
+        HttpClientSslConfigurer sslConfigurer,
+        List<HttpClientCustomizer> customizers,
+        ConnectionProvider connectionProvider) {
+      // sorted in place by HttpClientFactory
+      super(properties, serverProperties, sslConfigurer, new ArrayList<>(customizers));
+      this.connectionProvider = connectionProvider;
+    }
+
+    @Override
+    protected HttpClient createInstance() {
+      return super.createInstance();
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+      return connectionProvider;
+    }
+  }
+
+  /**
+   * One entry of {@code gateway.routes}.
+   *
+   * @param id the route id, also used in metrics and error messages
+   * @param uri the backend base URI
+   * @param paths path patterns routed to the backend, e.g. {@code /api/cloud/**}
+   * @param stripPrefix number of leading path segments removed before forwarding
+   * @param requiredRoles roles the caller must have, empty for any authenticated caller
+   * @param connectTimeout time allowed to open a connection to the backend
+   * @param responseTimeout time allowed until the backend's response headers arrive
+   * @param pool the route's connection pool
+   */
+  public record RouteProperties(
+      String id,
+      URI uri,
+      List<String> paths,
+      @DefaultValue("0") int stripPrefix,
+      @DefaultValue List<String> requiredRoles,
+      @DefaultValue("PT2S") Duration connectTimeout,
+      @DefaultValue("PT30S") Duration responseTimeout,
+      @DefaultValue PoolProperties pool) {
+    public RouteProperties {
+      if (id == null || id.isBlank() || uri == null || paths == null || paths.isEmpty()) {
+        throw new IllegalStateException(
+            "Gateway route " + id + " needs an id, a uri and at least one path");
+      }
+    }
+  }
+
+  /**
+   * Connection pool settings of one route.
+   *
+   * @param maxConnections connections open to the backend at most
+   * @param pendingAcquireMaxCount requests waiting for a connection at most, beyond that they are
+   *     rejected right away
+   * @param pendingAcquireTimeout time a request waits for a connection
+   * @param maxIdleTime idle connections are closed after this
+   * @param maxLifeTime connections are closed after this, to follow DNS and load balancer changes
+   * @param evictInBackground interval of the background check for idle and expired connections
+   */
+  public record PoolProperties(
+      @DefaultValue("100") int maxConnections,
+      @DefaultValue("200") int pendingAcquireMaxCount,
+      @DefaultValue("PT5S") Duration pendingAcquireTimeout,
+      @DefaultValue("PT30S") Duration maxIdleTime,
+      @DefaultValue("PT5M") Duration maxLifeTime,
+      @DefaultValue("PT30S") Duration evictInBackground) {}
+}
@@ -0,0 +1,152 @@
+package vaultweb.apigateway.service.auth;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Timers for the {@link AuthService} operations and the phases they are made of.
+ *
+ * <ul>
+ *   <li>{@code auth.operation.duration{operation, outcome}} covers a whole operation, with {@code
+ *       outcome} being {@code success}, {@code failure} or {@code cancelled}.
+ *   <li>{@code auth.operation.phase.duration{operation, phase}} covers one step, for example the
+ *       user lookup or the bcrypt check of a login.
+ * </ul>
+ *
+ * <p>All timers are registered up front, so recording never allocates tags.
+ */
+@Component
+public class AuthMetrics {
+  private final Map<Operation, Timer[]> operationTimers = new EnumMap<>(Operation.class);
+  private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+
+  public AuthMetrics(MeterRegistry meterRegistry) {
+    for (Operation operation : Operation.values()) {
+      Timer[] byOutcome = new Timer[Outcome.values().length];
+      for (Outcome outcome : Outcome.values()) {
+        byOutcome[outcome.ordinal()] =
+            Timer.builder("auth.operation.duration")
+                .description("Time spent in an authentication operation")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+      }
+      operationTimers.put(operation, byOutcome);
+    }
+    for (Phase phase : Phase.values()) {
+      phaseTimers.put(
+          phase,
+          Timer.builder("auth.operation.phase.duration")
+              .description("Time spent in one phase of an authentication operation")
+              .tag("operation", phase.operation.tag)
+              .tag("phase", phase.tag)
+              .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Times a whole operation from subscription until it terminates, tagged with its outcome.
+   *
+   * @param operation the operation
+   * @param source the operation's publisher
+   * @return the timed publisher
+   */
+  public <T> Mono<T> timeOperation(Operation operation, Mono<T> source) {
+    Timer[] byOutcome = operationTimers.get(operation);
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          return source.doFinally(
+              signal ->
+                  byOutcome[Outcome.of(signal).ordinal()].record(
+                      System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+  }
+
+  /**
+   * Times one phase from subscription until it terminates, regardless of the outcome.
+   *
+   * @param phase the phase
+   * @param source the phase's publisher
+   * @return the timed publisher
+   */
+  public <T> Mono<T> timePhase(Phase phase, Mono<T> source) {
+    Timer timer = phaseTimers.get(phase);
+    return Mono.defer(
+        () -> {
+          long started = System.nanoTime();
+          return source.doFinally(
+              signal -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+  }
+
+  /**
+   * Times a synchronous phase.
+   *
+   * @param phase the phase
+   * @param task the phase's work
+   * @return the task's result
+   */
+  public <T> T timePhase(Phase phase, Supplier<T> task) {
+    return phaseTimers.get(phase).record(task);
+  }
+
+  public enum Operation {
+    LOGIN("login"),
+    REGISTER("register"),
+    SWITCH_TOKEN("switch_token"),
+    LOGOUT("logout");
+
+    private final String tag;
+
+    Operation(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  public enum Phase {
+    LOGIN_USER_LOOKUP(Operation.LOGIN, "user_lookup"),
+    LOGIN_PASSWORD_CHECK(Operation.LOGIN, "password_check"),
+    LOGIN_ACCESS_TOKEN(Operation.LOGIN, "access_token"),
+    LOGIN_REFRESH_TOKEN_WRITE(Operation.LOGIN, "refresh_token_write"),
+    REGISTER_PASSWORD_HASH(Operation.REGISTER, "password_hash"),
+    REGISTER_USER_INSERT(Operation.REGISTER, "user_insert"),
+    SWITCH_TOKEN_ROTATE(Operation.SWITCH_TOKEN, "refresh_token_rotate"),
+    SWITCH_TOKEN_ACCESS_TOKEN(Operation.SWITCH_TOKEN, "access_token"),
+    LOGOUT_ACCESS_TOKEN_REVOKE(Operation.LOGOUT, "access_token_revoke"),
+    LOGOUT_USER_RESOLVE(Operation.LOGOUT, "user_resolve"),
+    LOGOUT_REFRESH_TOKEN_DELETE(Operation.LOGOUT, "refresh_token_delete");
+
+    private final Operation operation;
+    private final String tag;
+
+    Phase(Operation operation, String tag) {
+      this.operation = operation;
+      this.tag = tag;
+    }
+  }
+
+  private enum Outcome {
+    SUCCESS,
+    FAILURE,
+    CANCELLED;
+
+    static Outcome of(SignalType signal) {
+      return switch (signal) {
+        case ON_ERROR -> FAILURE;
+        case CANCEL -> CANCELLED;
+        default -> SUCCESS;
+      };
+    }
+  }
+}
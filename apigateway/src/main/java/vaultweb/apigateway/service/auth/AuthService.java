@@ -1,5 +1,6 @@
 package vaultweb.apigateway.service.auth;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import vaultweb.apigateway.dto.request.LoginRequest;
@@ -7,181 +8,310 @@ import vaultweb.apigateway.dto.request.UserRegistrationRequest;
 import vaultweb.apigateway.dto.response.AuthResponse;
 import vaultweb.apigateway.dto.response.UserDetails;
 import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.ExpectedFailureException;
 import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
 import vaultweb.apigateway.model.User;
 import vaultweb.apigateway.repositories.RefreshTokenRepository;
 import vaultweb.apigateway.repositories.UserRepository;
-import vaultweb.apigateway.util.BcryptUtil;
+import vaultweb.apigateway.service.auth.AuthMetrics.Operation;
+import vaultweb.apigateway.service.auth.AuthMetrics.Phase;
 import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.PasswordHashingEngine;
 import vaultweb.apigateway.util.SecurityContextUtil;
 
+import io.r2dbc.postgresql.api.PostgresqlException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class AuthService {
+  // unique index names from db/migration
+  private static final String EMAIL_CONSTRAINT = "users_email_key";
+  private static final String USERNAME_CONSTRAINT = "users_username_key";
+
   private final UserRepository userRepository;
   private final RefreshTokenService refreshTokenService;
   private final JwtUtil jwtUtil;
   private final SecurityContextUtil securityContextUtil;
   private final RefreshTokenRepository refreshTokenRepository;
+  private final PasswordHashingEngine passwordHashingEngine;
+  private final UserCache userCache;
+  private final AuthMetrics metrics;
+  private final LoginRateLimiter rateLimiter;
+  private final TokenRevocationService tokenRevocationService;
 
   /**
    * Registers a new user based on the provided registration request.
    *
+   * <p>The password is hashed on the hashing pool first, then the user is stored with a single
+   * INSERT. Duplicate emails and usernames are detected by the unique indexes, which also closes
+   * the race between two concurrent registrations. Attempts over the per-username rate limit fail
+   * before any of that with a {@link vaultweb.apigateway.exceptions.RateLimitExceededException}.
+   *
    * @param request The user registration request containing email, name, and password.
    * @return UserDetails of the newly registered user.
    * @throws RuntimeException if a user with the given email already exists.
    */
   public Mono<UserDetails> registerUser(UserRegistrationRequest request) {
-    return userRepository
-        .existsByEmail(request.email())
-        .flatMap(
-            emailExists -> {
-              if (emailExists) {
-                return Mono.error(
-                    new DefaultException("User with email " + request.email() + " already exists"));
-              }
-              return userRepository.existsByUsername(request.username());
-            })
-        .flatMap(
-            usernameExists -> {
-              if (usernameExists) {
-                return Mono.error(
-                    new DefaultException(
-                        "User with username " + request.username() + " already exists"));
-              }
-              return userRepository.save(
-                  User.builder()
-                      .email(request.email())
-                      .name(request.name())
-                      .username(request.username())
-                      .password(BcryptUtil.encode(request.password()))
-                      .build());
-            })
-        .map(
-            user ->
-                UserDetails.builder()
-                    .email(user.getEmail())
-                    .name(user.getName())
-                    .username(user.getUsername())
-                    .build());
+    return rateLimiter
+        .acquireUsername(Operation.REGISTER, request.username())
+        .then(registerUnlimited(request));
+  }
+
+  private Mono<UserDetails> registerUnlimited(UserRegistrationRequest request) {
+    return metrics.timeOperation(
+        Operation.REGISTER,
+        metrics
+            .timePhase(
+                Phase.REGISTER_PASSWORD_HASH, passwordHashingEngine.encode(request.password()))
+            .flatMap(
+                hashedPassword ->
+                    metrics.timePhase(
+                        Phase.REGISTER_USER_INSERT,
+                        userRepository.save(
+                            User.builder()
+                                .email(request.email())
+                                .name(request.name())
+                                .username(request.username())
+                                .password(hashedPassword)
+                                .build())))
+            .onErrorMap(DataIntegrityViolationException.class, e -> mapDuplicateUser(e, request))
+            .map(
+                user ->
+                    UserDetails.builder()
+                        .email(user.getEmail())
+                        .name(user.getName())
+                        .username(user.getUsername())
+                        .build()));
   }
 
   /**
-   * Authenticates a user based on the provided login request.
+   * Maps a unique index violation on {@code users} to the matching "already exists" error, based on
+   * the constraint name in the driver's error fields. The message text is not used, it is
+   * translated by the server's {@code lc_messages}.
+   */
+  private static Throwable mapDuplicateUser(
+      DataIntegrityViolationException e, UserRegistrationRequest request) {
+    String constraint = violatedConstraint(e);
+    if (EMAIL_CONSTRAINT.equals(constraint)) {
+      return new ExpectedFailureException(
+          "User with email " + request.email() + " already exists",
+          DefaultExceptionLevels.DUPLICATE_EXCEPTION);
+    }
+    if (USERNAME_CONSTRAINT.equals(constraint)) {
+      return new ExpectedFailureException(
+          "User with username " + request.username() + " already exists",
+          DefaultExceptionLevels.DUPLICATE_EXCEPTION);
+    }
+    return e;
+  }
+
+  private static String violatedConstraint(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof PostgresqlException postgresError) {
+        return postgresError.getErrorDetails().getConstraintName().orElse(null);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Authenticates a user based on the provided login request. Attempts over the per-username rate
+   * limit fail before the user lookup and the bcrypt check. If the stored hash was made at a lower
+   * bcrypt cost than the current one, the password is hashed again in the background after a
+   * successful check, provided the hashing pool is not busy.
    *
    * @param request The login request containing email and password.
    * @return AuthResponse containing access and refresh tokens.
    */
   public Mono<AuthResponse> login(LoginRequest request) {
-    return userRepository
-        .findByEmailOrUsername(request.emailUsername(), request.emailUsername())
-        .switchIfEmpty(
-            Mono.error(
-                new DefaultException(
-                    "Invalid email or password", DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)))
-        .flatMap(
-            user -> {
-              // Validate password
-              if (!BcryptUtil.matches(request.password(), user.getPassword())) {
-                return Mono.error(
-                    new DefaultException(
-                        "Invalid email or password",
-                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION));
-              }
+    return rateLimiter
+        .acquireUsername(Operation.LOGIN, request.emailUsername())
+        .then(loginUnlimited(request));
+  }
 
-              // Generate tokens
-              String accessToken = jwtUtil.generateToken(user.getUsername());
-              return refreshTokenService
-                  .createRefreshToken(user)
-                  .map(
-                      refreshToken ->
-                          AuthResponse.builder()
-                              .accessToken(accessToken)
-                              .refreshToken(refreshToken.getToken())
-                              .build());
-            });
+  private Mono<AuthResponse> loginUnlimited(LoginRequest request) {
+    return metrics.timeOperation(
+        Operation.LOGIN,
+        metrics
+            .timePhase(Phase.LOGIN_USER_LOOKUP, userRepository.findByLogin(request.emailUsername()))
+            .switchIfEmpty(
+                Mono.error(
+                    () ->
+                        new ExpectedFailureException(
+                            "Invalid email or password",
+                            DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)))
+            .flatMap(
+                user ->
+                    // Validate password
+                    metrics
+                        .timePhase(
+                            Phase.LOGIN_PASSWORD_CHECK,
+                            passwordHashingEngine.matches(request.password(), user.getPassword()))
+                        .flatMap(
+                            matches -> {
+                              if (!matches) {
+                                return Mono.error(
+                                    new ExpectedFailureException(
+                                        "Invalid email or password",
+                                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION));
+                              }
+
+                              if (passwordHashingEngine.needsRehash(user.getPassword())) {
+                                rehashPassword(user, request.password());
+                              }
+
+                              // Generate tokens
+                              String accessToken =
+                                  metrics.timePhase(
+                                      Phase.LOGIN_ACCESS_TOKEN, () -> jwtUtil.generateToken(user));
+                              return metrics
+                                  .timePhase(
+                                      Phase.LOGIN_REFRESH_TOKEN_WRITE,
+                                      refreshTokenService.createRefreshToken(user))
+                                  .map(
+                                      refreshToken ->
+                                          AuthResponse.builder()
+                                              .accessToken(accessToken)
+                                              .refreshToken(refreshToken.getToken())
+                                              .build());
+                            })));
+  }
+
+  /**
+   * Stores a hash of the password at the current cost. Runs detached from the login, which neither
+   * waits for nor fails with it, and only on spare hashing capacity; a skipped or failed rehash is
+   * retried on the next login.
+   */
+  private void rehashPassword(User user, String password) {
+    passwordHashingEngine
+        .encodeIfIdle(password)
+        .flatMap(hash -> userRepository.replacePasswordHash(user.getId(), user.getPassword(), hash))
+        .subscribe(
+            updated -> {
+              if (updated > 0) {
+                userCache.invalidate(user);
+                log.debug("Rehashed password of user {}", user.getId());
+              }
+            },
+            e ->
+                log.warn("Could not rehash password of user {}: {}", user.getId(), e.getMessage()));
   }
 
+  /**
+   * Exchanges a refresh token for a new access and refresh token pair. Expiry check, rotation and
+   * user lookup happen in a single database statement.
+   *
+   * @param token the presented refresh token
+   * @return AuthResponse containing the new access and refresh tokens.
+   */
   public Mono<AuthResponse> switchToken(String token) {
-    // find refresh
-    return refreshTokenRepository
-        .findByToken(token)
-        .switchIfEmpty(
-            Mono.error(
-                new DefaultException(
-                    "Refresh token not found", DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)))
-        .flatMap(refreshTokenService::verifyExpiration)
-        .flatMap(
-            refreshToken ->
-                userRepository
-                    .findById(refreshToken.getUserId())
-                    .switchIfEmpty(
-                        Mono.error(
-                            new DefaultException(
-                                "Refresh token not found",
-                                DefaultExceptionLevels.AUTHENTICATION_EXCEPTION))))
+    return metrics.timeOperation(
+        Operation.SWITCH_TOKEN,
+        metrics
+            .timePhase(Phase.SWITCH_TOKEN_ROTATE, refreshTokenService.rotateRefreshToken(token))
+            .map(
+                rotation ->
+                    new AuthResponse(
+                        metrics.timePhase(
+                            Phase.SWITCH_TOKEN_ACCESS_TOKEN,
+                            () -> jwtUtil.generateToken(rotation.user())),
+                        rotation.token())));
+  }
+
+  /**
+   * Returns the details of the authenticated user. Tokens issued with profile claims ({@code
+   * jwt.claims.profile}) are answered from the verified claims alone; older tokens fall back to the
+   * user cache.
+   *
+   * @return UserDetails of the authenticated user
+   */
+  public Mono<UserDetails> getUserDetails() {
+    return securityContextUtil
+        .getVerifiedClaims()
         .flatMap(
-            user -> {
-              // generate new jwt
-              String accessToken = jwtUtil.generateToken(user.getUsername());
-              // generate new refresh token
-              return refreshTokenService
-                  .createRefreshToken(user)
-                  .flatMap(
-                      refreshToken -> {
-                        // new refresh token
-                        return Mono.just(new AuthResponse(accessToken, refreshToken.getToken()));
-                      });
+            claims -> {
+              if (claims.hasProfile()) {
+                return Mono.just(
+                    UserDetails.builder()
+                        .email(claims.email())
+                        .name(claims.name())
+                        .username(claims.subject())
+                        .build());
+              }
+              return findAuthenticatedUser(claims.subject())
+                  .map(
+                      user ->
+                          UserDetails.builder()
+                              .email(user.getEmail())
+                              .name(user.getName())
+                              .username(user.getUsername())
+                              .build());
             });
   }
 
-  // get user-details
-  public Mono<UserDetails> getUserDetails() {
+  /**
+   * Evicts the currently authenticated user from the user cache. Call after a change to the user's
+   * username, email or password has been persisted.
+   *
+   * @return a {@link Mono} that completes once the cached entries are gone
+   */
+  public Mono<Void> evictAuthenticatedUser() {
     return securityContextUtil
         .getAuthenticatedUsername()
-        .flatMap(
-            username ->
-                userRepository
-                    .findByUsername(username)
-                    .switchIfEmpty(
-                        Mono.error(
-                            new DefaultException(
-                                "username from token has no registered user",
-                                DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)))
-                    .map(
-                        user ->
-                            UserDetails.builder()
-                                .email(user.getEmail())
-                                .name(user.getName())
-                                .username(user.getUsername())
-                                .build()));
+        .doOnNext(userCache::invalidateUsername)
+        .then();
   }
 
   /**
-   * Logs out the currently authenticated user by deleting all refresh tokens associated with the
-   * user identified in the security context.
+   * Logs out the currently authenticated user by revoking the presented access token on all gateway
+   * nodes and deleting all refresh tokens associated with the user identified in the security
+   * context.
    *
-   * <p>If no user can be resolved from the current authentication context, a {@link
+   * <p>The user id is taken from the token's {@code uid} claim; tokens without it are resolved
+   * through the user cache. Tokens without a {@code jti} cannot be revoked and stay valid until
+   * they expire. If no user can be resolved from the current authentication context, a {@link
    * DefaultException} with level {@link DefaultExceptionLevels#AUTHENTICATION_EXCEPTION} is
    * emitted.
    *
-   * @return a {@link Mono} that completes when the user's refresh tokens have been deleted
+   * @return a {@link Mono} that completes when the token is revoked and the user's refresh tokens
+   *     have been deleted
    */
   public Mono<Void> logout() {
-    return securityContextUtil
-        .getAuthenticatedUsername()
-        .flatMap(
-            username ->
-                userRepository
-                    .findByUsername(username)
-                    .switchIfEmpty(
-                        Mono.error(
-                            new DefaultException(
-                                "username from token has no registered user",
-                                DefaultExceptionLevels.AUTHENTICATION_EXCEPTION))))
-        .flatMap(user -> refreshTokenRepository.deleteByUserId(user.getId()));
+    return metrics.timeOperation(
+        Operation.LOGOUT,
+        securityContextUtil
+            .getVerifiedClaims()
+            .flatMap(
+                claims ->
+                    Mono.when(
+                        metrics.timePhase(
+                            Phase.LOGOUT_ACCESS_TOKEN_REVOKE,
+                            tokenRevocationService.revoke(claims)),
+                        metrics
+                            .timePhase(
+                                Phase.LOGOUT_USER_RESOLVE,
+                                claims.userId() != null
+                                    ? Mono.just(claims.userId())
+                                    : findAuthenticatedUser(claims.subject()).map(User::getId))
+                            .flatMap(
+                                userId ->
+                                    metrics.timePhase(
+                                        Phase.LOGOUT_REFRESH_TOKEN_DELETE,
+                                        refreshTokenRepository.deleteByUserId(userId))))));
+  }
+
+  private Mono<User> findAuthenticatedUser(String username) {
+    return userCache
+        .findByUsername(username)
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new ExpectedFailureException(
+                        "username from token has no registered user",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
   }
 }
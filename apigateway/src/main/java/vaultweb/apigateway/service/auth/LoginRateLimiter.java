@@ -0,0 +1,119 @@
+package vaultweb.apigateway.service.auth;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import vaultweb.apigateway.exceptions.RateLimitExceededException;
+import vaultweb.apigateway.service.auth.AuthMetrics.Operation;
+import vaultweb.apigateway.util.TokenBuckets;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits login and registration attempts per client address and per username before any database or
+ * bcrypt work is done, so credential stuffing cannot monopolize the hashing pool.
+ *
+ * <p>Address buckets are checked by {@code LoginRateLimitFilter} before the request body is read,
+ * username buckets by {@link AuthService} once it is. Both are shared between login and
+ * registration. Usernames are compared in NFKC, lower case and trimmed, like the case-insensitive
+ * unique indexes. A username bucket holds more attempts than an address bucket, so a single client
+ * cannot use up an account's attempts and lock its owner out. Rejections are counted as {@code
+ * auth.rate_limit.rejected{operation, key}}.
+ */
+@Component
+public class LoginRateLimiter {
+  private final boolean enabled;
+  private final TokenBuckets byAddress;
+  private final TokenBuckets byUsername;
+  private final Map<Operation, Counter> addressRejections = new EnumMap<>(Operation.class);
+  private final Map<Operation, Counter> usernameRejections = new EnumMap<>(Operation.class);
+
+  public LoginRateLimiter(
+      @Value("${auth.rateLimit.enabled:true}") boolean enabled,
+      @Value("${auth.rateLimit.maxKeys:100000}") long maxKeys,
+      @Value("${auth.rateLimit.address.capacity:20}") int addressCapacity,
+      @Value("${auth.rateLimit.address.period:PT1M}") Duration addressPeriod,
+      @Value("${auth.rateLimit.username.capacity:30}") int usernameCapacity,
+      @Value("${auth.rateLimit.username.period:PT1M}") Duration usernamePeriod,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.byAddress = new TokenBuckets(addressCapacity, addressPeriod, maxKeys);
+    this.byUsername = new TokenBuckets(usernameCapacity, usernamePeriod, maxKeys);
+
+    for (Operation operation : new Operation[] {Operation.LOGIN, Operation.REGISTER}) {
+      addressRejections.put(operation, rejectionCounter(meterRegistry, operation, "address"));
+      usernameRejections.put(operation, rejectionCounter(meterRegistry, operation, "username"));
+    }
+    Gauge.builder("auth.rate_limit.keys", byAddress, TokenBuckets::size)
+        .description("Keys currently tracked by the login rate limiter")
+        .tag("key", "address")
+        .register(meterRegistry);
+    Gauge.builder("auth.rate_limit.keys", byUsername, TokenBuckets::size)
+        .description("Keys currently tracked by the login rate limiter")
+        .tag("key", "username")
+        .register(meterRegistry);
+  }
+
+  private static Counter rejectionCounter(
+      MeterRegistry meterRegistry, Operation operation, String key) {
+    return Counter.builder("auth.rate_limit.rejected")
+        .description("Login and registration attempts rejected by the rate limiter")
+        .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+        .tag("key", key)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Takes an attempt from the client address's bucket.
+   *
+   * @param operation {@link Operation#LOGIN} or {@link Operation#REGISTER}
+   * @param address the client address
+   * @return {@link Duration#ZERO} if admitted, otherwise how long the client has to wait
+   */
+  public Duration tryAcquireAddress(Operation operation, String address) {
+    if (!enabled) {
+      return Duration.ZERO;
+    }
+    Duration wait = byAddress.tryAcquire(address);
+    if (!wait.isZero()) {
+      addressRejections.get(operation).increment();
+    }
+    return wait;
+  }
+
+  /**
+   * Takes an attempt from the username's bucket.
+   *
+   * @param operation {@link Operation#LOGIN} or {@link Operation#REGISTER}
+   * @param username the username or email as sent by the client
+   * @return a {@link Mono} that completes if admitted, or fails with a {@link
+   *     RateLimitExceededException}
+   */
+  public Mono<Void> acquireUsername(Operation operation, String username) {
+    return Mono.defer(
+        () -> {
+          if (!enabled || username == null) {
+            return Mono.empty();
+          }
+          Duration wait = byUsername.tryAcquire(normalize(username));
+          if (wait.isZero()) {
+            return Mono.empty();
+          }
+          usernameRejections.get(operation).increment();
+          return Mono.error(new RateLimitExceededException(wait));
+        });
+  }
+
+  static String normalize(String username) {
+    return Normalizer.normalize(username, Normalizer.Form.NFKC).trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -1,17 +1,19 @@
 package vaultweb.apigateway.service.auth;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.util.Base64;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.ExpectedFailureException;
 import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
 import vaultweb.apigateway.model.RefreshToken;
+import vaultweb.apigateway.model.RefreshTokenRotation;
 import vaultweb.apigateway.model.User;
 import vaultweb.apigateway.repositories.RefreshTokenRepository;
+import vaultweb.apigateway.util.RefreshTokenGenerator;
+import vaultweb.apigateway.util.TokenDigest;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
@@ -25,18 +27,11 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class RefreshTokenService {
   private final RefreshTokenRepository refreshTokenRepository;
+  private final RefreshTokenGenerator refreshTokenGenerator;
 
   @Value("${jwt.refresh.expiration:604800000}") // 7 days
   private Long refreshExpiration;
 
-  private static String generateRefreshToken() {
-    SecureRandom secureRandom = new SecureRandom();
-    Base64.Encoder base64Encoder = Base64.getUrlEncoder().withoutPadding();
-    byte[] randomBytes = new byte[32];
-    secureRandom.nextBytes(randomBytes);
-    return base64Encoder.encodeToString(randomBytes);
-  }
-
   /**
    * Creates a new refresh token for the given user.
    *
@@ -44,37 +39,56 @@ public class RefreshTokenService {
    * @return the created refresh token
    */
   public Mono<RefreshToken> createRefreshToken(User user) {
-    return refreshTokenRepository
-        .deleteByUserId(user.getId())
-        .then(
-            Mono.defer(
-                () -> {
-                  RefreshToken refreshToken = new RefreshToken();
-                  refreshToken.setUserId(user.getId());
-                  refreshToken.setToken(generateRefreshToken());
-                  refreshToken.setExpiryDate(Instant.now().plusMillis(refreshExpiration));
-                  refreshToken.setCreatedAt(Instant.now());
-                  return refreshTokenRepository.save(refreshToken);
-                }));
+    return Mono.defer(
+        () -> {
+          Instant now = Instant.now();
+          String token = refreshTokenGenerator.nextToken();
+          // single round trip: replaces the user's previous token atomically
+          return refreshTokenRepository
+              .upsertForUser(
+                  user.getId(), TokenDigest.sha256(token), now.plusMillis(refreshExpiration), now)
+              .doOnNext(refreshToken -> refreshToken.setToken(token));
+        });
   }
 
   /**
-   * Verifies if the given refresh token has expired.
+   * Replaces the presented refresh token with a new one in a single database round trip.
    *
-   * @param token the refresh token to verify
-   * @return a {@link Mono} that emits the valid refresh token if it has not expired, or completes
-   *     with a {@link DefaultException} error signal if the token has expired
+   * @param token the presented refresh token
+   * @return a {@link Mono} emitting the rotation with the token owner, or a {@link
+   *     DefaultException} error signal if the token is unknown or has expired
    */
-  public Mono<RefreshToken> verifyExpiration(RefreshToken token) {
-    if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-      return refreshTokenRepository
-          .delete(token)
-          .then(
-              Mono.error(
-                  new DefaultException(
-                      "Refresh token has expired. Please login again.",
-                      DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
-    }
-    return Mono.just(token);
+  public Mono<RefreshTokenRotation> rotateRefreshToken(String token) {
+    return Mono.defer(
+            () -> {
+              Instant now = Instant.now();
+              return refreshTokenRepository.rotate(
+                  TokenDigest.sha256(token),
+                  refreshTokenGenerator.nextToken(),
+                  now.plusMillis(refreshExpiration),
+                  now);
+            })
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new ExpectedFailureException(
+                        "Refresh token not found",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)))
+        .flatMap(
+            rotation -> {
+              if (rotation.expired()) {
+                return Mono.error(
+                    new ExpectedFailureException(
+                        "Refresh token has expired. Please login again.",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION));
+              }
+              if (rotation.user() == null) {
+                return Mono.error(
+                    new ExpectedFailureException(
+                        "Refresh token not found",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION));
+              }
+              return Mono.just(rotation);
+            });
   }
 }
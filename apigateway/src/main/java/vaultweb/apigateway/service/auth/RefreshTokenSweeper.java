@@ -0,0 +1,150 @@
+package vaultweb.apigateway.service.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Periodically deletes refresh tokens past their {@code expiry_date}, which otherwise only get
+ * removed when a client presents them again.
+ *
+ * <p>Rows are deleted in chunks of {@code auth.refreshTokenSweeper.chunkSize}, each its own short
+ * statement, until nothing is left or the per-run time budget is spent. A session-level Postgres
+ * advisory lock makes sure only one gateway node sweeps at a time; the others skip the run.
+ *
+ * <p>The same run drops {@code revoked_tokens} rows whose access token has expired. Nothing else
+ * cleans up that table, so {@code auth.refreshTokenSweeper.enabled} switches off both.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(
+    name = "auth.refreshTokenSweeper.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class RefreshTokenSweeper {
+  // arbitrary application-wide key identifying the sweeper's advisory lock
+  private static final long LOCK_KEY = 0x52_54_53_57_45_45_50L;
+
+  private static final String DELETE_CHUNK =
+      """
+      DELETE FROM refresh_tokens
+       WHERE id IN (SELECT id
+                      FROM refresh_tokens
+                     WHERE expiry_date < $1
+                     LIMIT $2
+                       FOR UPDATE SKIP LOCKED)
+      """;
+
+  // bounded by the revocations within one access token lifetime, so a single statement
+  private static final String DELETE_REVOKED_TOKENS =
+      "DELETE FROM revoked_tokens WHERE expires_at < $1";
+
+  private final DatabaseClient databaseClient;
+  private final int chunkSize;
+  private final Duration timeBudget;
+  private final Counter sweptCounter;
+
+  public RefreshTokenSweeper(
+      DatabaseClient databaseClient,
+      @Value("${auth.refreshTokenSweeper.chunkSize:1000}") int chunkSize,
+      @Value("${auth.refreshTokenSweeper.timeBudget:PT30S}") Duration timeBudget,
+      MeterRegistry meterRegistry) {
+    this.databaseClient = databaseClient;
+    this.chunkSize = chunkSize;
+    this.timeBudget = timeBudget;
+    this.sweptCounter =
+        Counter.builder("auth.refresh_tokens.swept")
+            .description("Expired refresh tokens deleted by the background sweeper")
+            .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.refreshTokenSweeper.initialDelay:PT1M}",
+      fixedDelayString = "${auth.refreshTokenSweeper.interval:PT10M}")
+  public Mono<Void> sweep() {
+    long started = System.nanoTime();
+    return databaseClient
+        .inConnection(this::sweepWhileLocked)
+        .doOnNext(
+            removed -> {
+              sweptCounter.increment(removed);
+              log.info(
+                  "Swept {} expired refresh tokens in {} ms",
+                  removed,
+                  Duration.ofNanos(System.nanoTime() - started).toMillis());
+            })
+        .onErrorResume(
+            e -> {
+              log.warn("Refresh token sweep failed: {}", e.getMessage());
+              return Mono.empty();
+            })
+        .then();
+  }
+
+  /**
+   * Deletes expired tokens if this node wins the advisory lock, releasing it on the same pooled
+   * connection afterwards.
+   *
+   * @return the number of deleted rows, or empty if another node holds the lock
+   */
+  private Mono<Long> sweepWhileLocked(Connection connection) {
+    return queryBoolean(connection, "SELECT pg_try_advisory_lock($1)")
+        .flatMap(
+            locked -> {
+              if (!locked) {
+                log.debug("Refresh token sweep skipped, another node holds the lock");
+                return Mono.empty();
+              }
+              return Mono.usingWhen(
+                  Mono.just(connection),
+                  this::deleteInChunks,
+                  c -> queryBoolean(c, "SELECT pg_advisory_unlock($1)"));
+            });
+  }
+
+  private Mono<Long> deleteInChunks(Connection connection) {
+    long deadline = System.nanoTime() + timeBudget.toNanos();
+    Instant now = Instant.now();
+    return deleteChunk(connection, now)
+        .expand(
+            deleted ->
+                deleted >= chunkSize && System.nanoTime() < deadline
+                    ? deleteChunk(connection, now)
+                    : Mono.empty())
+        .reduce(0L, Long::sum)
+        .flatMap(removed -> deleteRevokedTokens(connection, now).thenReturn(removed));
+  }
+
+  private Mono<Void> deleteRevokedTokens(Connection connection, Instant now) {
+    return Mono.from(connection.createStatement(DELETE_REVOKED_TOKENS).bind("$1", now).execute())
+        .flatMap(result -> Mono.from(result.getRowsUpdated()))
+        .doOnNext(removed -> log.debug("Deleted {} expired token revocations", removed))
+        .then();
+  }
+
+  private Mono<Long> deleteChunk(Connection connection, Instant now) {
+    return Mono.from(
+            connection
+                .createStatement(DELETE_CHUNK)
+                .bind("$1", now)
+                .bind("$2", chunkSize)
+                .execute())
+        .flatMap(result -> Mono.from(result.getRowsUpdated()));
+  }
+
+  private static Mono<Boolean> queryBoolean(Connection connection, String sql) {
+    return Mono.from(connection.createStatement(sql).bind("$1", LOCK_KEY).execute())
+        .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Boolean.class))));
+  }
+}
@@ -0,0 +1,187 @@
+package vaultweb.apigateway.service.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import vaultweb.apigateway.repositories.RevokedTokenRepository;
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedClaims;
+
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Revokes access tokens before their expiry and keeps every node's {@link RevokedTokenSet} in sync.
+ *
+ * <p>A revocation is added to the local set right away and stored in {@code revoked_tokens}, whose
+ * insert trigger sends a Postgres notification to all nodes. Each node keeps one dedicated
+ * connection, outside the pool, that {@code LISTEN}s for these notifications. After (re)connecting
+ * it loads all unexpired revocations, so nothing sent while the node was down or disconnected is
+ * lost. Startup waits up to {@code auth.revocation.startupTimeout} for the first load; if the
+ * database is unreachable it continues and keeps reconnecting in the background.
+ *
+ * <p>Only tokens with a {@code jti} can be revoked. Rows whose token has expired are deleted by
+ * {@link RefreshTokenSweeper}; while {@code auth.refreshTokenSweeper.enabled} is false they are
+ * kept.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService implements ApplicationRunner, DisposableBean {
+  private static final String CHANNEL = "revoked_tokens";
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final RevokedTokenSet revokedTokens;
+  private final ObjectProvider<ConnectionFactory> connectionFactory;
+  private final Duration startupTimeout;
+
+  // counted down once the first connection attempt either caught up or failed
+  private final CountDownLatch firstAttempt = new CountDownLatch(1);
+  private volatile Disposable listener;
+
+  public TokenRevocationService(
+      RevokedTokenRepository revokedTokenRepository,
+      RevokedTokenSet revokedTokens,
+      ObjectProvider<ConnectionFactory> connectionFactory,
+      @Value("${auth.revocation.startupTimeout:PT10S}") Duration startupTimeout) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.revokedTokens = revokedTokens;
+    this.connectionFactory = connectionFactory;
+    this.startupTimeout = startupTimeout;
+  }
+
+  /**
+   * Revokes the given access token on all nodes.
+   *
+   * @param claims the verified claims of the token
+   * @return a {@link Mono} that completes once the revocation is stored
+   */
+  public Mono<Void> revoke(VerifiedClaims claims) {
+    if (claims.jti() == null
+        || claims.expiresAt() == null
+        || !claims.expiresAt().isAfter(Instant.now())) {
+      return Mono.empty();
+    }
+    return Mono.defer(
+        () -> {
+          revokedTokens.add(claims.jti(), claims.expiresAt());
+          return revokedTokenRepository.revoke(claims.jti(), claims.expiresAt());
+        });
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws InterruptedException {
+    PostgresqlConnectionFactory factory = postgresConnectionFactory();
+    if (factory == null) {
+      log.warn("No Postgres connection factory, token revocations are not shared between nodes");
+      return;
+    }
+    listener =
+        listen(factory)
+            .retryWhen(
+                Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                    .maxBackoff(Duration.ofSeconds(30))
+                    .transientErrors(true)
+                    .doBeforeRetry(
+                        signal -> {
+                          firstAttempt.countDown();
+                          log.warn(
+                              "Revocation listener disconnected, reconnecting: {}",
+                              signal.failure().getMessage());
+                        }))
+            .subscribe();
+    if (!firstAttempt.await(startupTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+      log.warn("Revoked tokens not loaded within {}, continuing in the background", startupTimeout);
+    }
+  }
+
+  /**
+   * Listens for revocations on a dedicated connection, then loads the ones stored so far. Never
+   * completes normally: a closed connection is reported as an error so the caller reconnects.
+   */
+  private Mono<Void> listen(PostgresqlConnectionFactory factory) {
+    return Mono.usingWhen(
+            factory.create(),
+            connection ->
+                Mono.when(
+                    connection.getNotifications().doOnNext(this::apply),
+                    connection
+                        .createStatement("LISTEN " + CHANNEL)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .then(catchUp())
+                        .doOnSuccess(ignored -> firstAttempt.countDown())),
+            PostgresqlConnection::close)
+        .then(Mono.error(() -> new IllegalStateException("notification connection closed")));
+  }
+
+  private Mono<Void> catchUp() {
+    return revokedTokenRepository
+        .findByExpiresAtAfter(Instant.now())
+        .doOnNext(token -> revokedTokens.add(token.getJti(), token.getExpiresAt()))
+        .count()
+        .doOnNext(count -> log.info("Loaded {} revoked tokens", count))
+        .then();
+  }
+
+  /** Applies a notification with the payload {@code "<jti> <expires_at epoch seconds>"}. */
+  private void apply(Notification notification) {
+    String payload = notification.getParameter();
+    int separator = payload == null ? -1 : payload.indexOf(' ');
+    if (separator <= 0) {
+      log.warn("Ignoring malformed revocation notification: {}", payload);
+      return;
+    }
+    try {
+      revokedTokens.add(
+          payload.substring(0, separator),
+          Instant.ofEpochSecond(Long.parseLong(payload.substring(separator + 1))));
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring malformed revocation notification: {}", payload);
+    }
+  }
+
+  private PostgresqlConnectionFactory postgresConnectionFactory() {
+    // the pool would lend the listening connection out forever, so go around it
+    Object factory = connectionFactory.getIfAvailable();
+    while (!(factory instanceof PostgresqlConnectionFactory) && factory instanceof Wrapped<?> w) {
+      factory = w.unwrap();
+    }
+    return factory instanceof PostgresqlConnectionFactory postgres ? postgres : null;
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.revocation.pruneInterval:PT1M}",
+      fixedDelayString = "${auth.revocation.pruneInterval:PT1M}")
+  public void prune() {
+    int removed = revokedTokens.prune(Instant.now());
+    if (removed > 0) {
+      log.debug("Pruned {} expired revocations", removed);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    Disposable current = listener;
+    if (current != null) {
+      current.dispose();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package vaultweb.apigateway.service.auth;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.repositories.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache in front of {@link UserRepository#findByUsername(String)}.
+ *
+ * <p>Usernames are matched case-insensitively by the repository, so they are cached under their
+ * lower-case form and every spelling of a username shares one entry. Concurrent misses for the same
+ * key share one database query. Entries expire after {@code auth.userCache.ttl} and the cache holds
+ * at most {@code auth.userCache.maxSize} users. The cache is local to the node, so code that
+ * changes a user must call {@link #invalidate(User)} or {@link #invalidateUsername(String)}; other
+ * nodes catch up within the TTL. Cached users are shared instances and must not be modified.
+ */
+@Component
+public class UserCache {
+  private final UserRepository userRepository;
+  private final AsyncCache<String, User> byUsername;
+
+  public UserCache(
+      UserRepository userRepository,
+      @Value("${auth.userCache.ttl:PT5M}") Duration ttl,
+      @Value("${auth.userCache.maxSize:10000}") long maxSize,
+      MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    this.byUsername =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, byUsername.synchronous(), "auth.user.cache");
+  }
+
+  /**
+   * Finds a user by username, ignoring case, querying the database only on a cache miss.
+   *
+   * @param username the username
+   * @return the user, or empty if none exists (absent users are not cached)
+   */
+  public Mono<User> findByUsername(String username) {
+    return Mono.fromFuture(
+        () ->
+            byUsername.get(
+                key(username), (key, executor) -> userRepository.findByUsername(key).toFuture()),
+        true);
+  }
+
+  /**
+   * Evicts the user. Pass the user as it was before the change so that a renamed user's old
+   * username is evicted.
+   *
+   * @param user the user whose cached entry is stale
+   */
+  public void invalidate(User user) {
+    invalidateUsername(user.getUsername());
+  }
+
+  /**
+   * Evicts the user cached under the username, in any spelling.
+   *
+   * @param username the username whose cached entry is stale
+   */
+  public void invalidateUsername(String username) {
+    byUsername.synchronous().invalidate(key(username));
+  }
+
+  /** Lower-cases like the {@code lower()} the repository compares usernames with. */
+  private static String key(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
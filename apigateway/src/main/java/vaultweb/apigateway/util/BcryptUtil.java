@@ -5,29 +5,72 @@ import static org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.B
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 public class BcryptUtil {
-  private static final int BCRYPT_ROUNDS = 12;
+  /** Cost used by {@link #encode(String)}; the gateway itself hashes at a calibrated cost. */
+  public static final int DEFAULT_ROUNDS = 12;
+
+  public static final int MIN_ROUNDS = 4;
+  public static final int MAX_ROUNDS = 31;
+
   private static final BCryptPasswordEncoder.BCryptVersion BCRYPT_VERSION = $2B;
-  private static final BCryptPasswordEncoder encoder =
-      new BCryptPasswordEncoder(BCRYPT_VERSION, BCRYPT_ROUNDS);
+  private static final BCryptPasswordEncoder[] encoders = new BCryptPasswordEncoder[MAX_ROUNDS + 1];
+
+  static {
+    for (int rounds = MIN_ROUNDS; rounds <= MAX_ROUNDS; rounds++) {
+      encoders[rounds] = new BCryptPasswordEncoder(BCRYPT_VERSION, rounds);
+    }
+  }
 
   /**
-   * Encodes the password using the bcrypt algorithm.
+   * Encodes the password using the bcrypt algorithm at the default cost.
    *
    * @param password to be encoded
    * @return hashed version of the password
    */
   public static String encode(final String password) {
-    return encoder.encode(password);
+    return encode(password, DEFAULT_ROUNDS);
   }
 
   /**
-   * Checks if two passwords are equivalent.
+   * Encodes the password using the bcrypt algorithm.
+   *
+   * @param password to be encoded
+   * @param rounds the bcrypt cost, between {@link #MIN_ROUNDS} and {@link #MAX_ROUNDS}
+   * @return hashed version of the password
+   */
+  public static String encode(final String password, final int rounds) {
+    if (rounds < MIN_ROUNDS || rounds > MAX_ROUNDS) {
+      throw new IllegalArgumentException("Bad bcrypt cost " + rounds);
+    }
+    return encoders[rounds].encode(password);
+  }
+
+  /**
+   * Checks if two passwords are equivalent. The cost is read from the hash.
    *
    * @param password that is unencrypted
    * @param hashedPassword from database
    * @return true if the passwords are the same
    */
   public static boolean matches(final String password, final String hashedPassword) {
-    return encoder.matches(password, hashedPassword);
+    return encoders[DEFAULT_ROUNDS].matches(password, hashedPassword);
+  }
+
+  /**
+   * Reads the cost from a hash of the form {@code $2b$12$...}.
+   *
+   * @param hashedPassword from database
+   * @return the cost, or -1 if the value is not a bcrypt hash
+   */
+  public static int rounds(final String hashedPassword) {
+    if (hashedPassword == null
+        || hashedPassword.length() < 7
+        || hashedPassword.charAt(0) != '$'
+        || hashedPassword.charAt(3) != '$'
+        || hashedPassword.charAt(6) != '$') {
+      return -1;
+    }
+    int tens = Character.digit(hashedPassword.charAt(4), 10);
+    int ones = Character.digit(hashedPassword.charAt(5), 10);
+    return tens < 0 || ones < 0 ? -1 : tens * 10 + ones;
   }
 }
@@ -0,0 +1,294 @@
+package vaultweb.apigateway.util;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asymmetric signing keys for access tokens, selected by the {@code kid} header.
+ *
+ * <p>Keys are configured under {@code jwt.signing.keys}. Each key has an optional {@code
+ * activeFrom} (when it starts signing) and {@code expiresAt} (when tokens signed with it stop being
+ * accepted), so a new key can be published through the JWKS endpoint before it signs anything and
+ * the previous key keeps verifying until its tokens have expired. The newest active key with a
+ * private part signs new tokens; verification is a single map lookup by {@code kid}. Startup fails
+ * without any configured key, unless {@code jwt.signing.generateEphemeralKey} allows a throwaway
+ * key for local development.
+ *
+ * <p>Tokens without a {@code kid} that were signed with the legacy {@code jwt.secret} HMAC key are
+ * still accepted until {@code jwt.legacy.acceptUntil}, which is required along with the secret. The
+ * secret is never part of the shipped configuration and has to be supplied from outside, e.g. as
+ * {@code JWT_SECRET}.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing extends LocatorAdapter<Key> {
+  private static final String PROPERTY = "jwt.signing.keys";
+
+  private final Environment environment;
+  private final SecretKey legacySecretKey;
+  private final Instant legacyAcceptUntil;
+  private final boolean generateEphemeralKey;
+  private volatile Map<String, SigningKey> keysById;
+
+  public JwtKeyRing(
+      Environment environment,
+      @Value("${jwt.secret:}") String legacySecret,
+      @Value("${jwt.legacy.acceptUntil:#{null}}") Instant legacyAcceptUntil,
+      @Value("${jwt.signing.generateEphemeralKey:false}") boolean generateEphemeralKey) {
+    this.environment = environment;
+    this.generateEphemeralKey = generateEphemeralKey;
+    if (legacySecret.isEmpty()) {
+      this.legacySecretKey = null;
+      this.legacyAcceptUntil = null;
+    } else {
+      if (legacyAcceptUntil == null) {
+        throw new IllegalStateException(
+            "jwt.legacy.acceptUntil is required when jwt.secret is set, e.g. the time of the switch"
+                + " to asymmetric keys plus one access token lifetime");
+      }
+      this.legacySecretKey = Keys.hmacShaKeyFor(legacySecret.getBytes());
+      this.legacyAcceptUntil = legacyAcceptUntil;
+      log.info("Accepting legacy HMAC tokens until {}", legacyAcceptUntil);
+    }
+    this.keysById = load();
+  }
+
+  /**
+   * Returns the key that signs new tokens: the most recently activated, unexpired key that has a
+   * private part.
+   *
+   * @return the current signing key
+   * @throws IllegalStateException if no key is currently able to sign
+   */
+  public SigningKey currentSigningKey() {
+    Instant now = Instant.now();
+    SigningKey current = null;
+    for (SigningKey key : keysById.values()) {
+      if (key.canSign(now) && (current == null || key.activeFrom().isAfter(current.activeFrom()))) {
+        current = key;
+      }
+    }
+    if (current == null) {
+      throw new IllegalStateException("No active JWT signing key configured");
+    }
+    return current;
+  }
+
+  /**
+   * Returns the JSON Web Key Set of every key that may still verify tokens, including keys that are
+   * published ahead of their activation.
+   *
+   * @return the JWKS document
+   */
+  public String jwksJson() {
+    Instant now = Instant.now();
+    return keysById.values().stream()
+        .filter(key -> key.canVerify(now))
+        .map(SigningKey::jwkJson)
+        .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+  }
+
+  @Override
+  protected Key locate(JwsHeader header) {
+    String kid = header.getKeyId();
+    if (kid == null) {
+      if (legacySecretKey != null
+          && header.getAlgorithm().startsWith("HS")
+          && Instant.now().isBefore(legacyAcceptUntil)) {
+        return legacySecretKey;
+      }
+      throw new UnsupportedJwtException("Token has no key id");
+    }
+    SigningKey key = keysById.get(kid);
+    if (key == null || !key.canVerify(Instant.now())) {
+      throw new UnsupportedJwtException("Unknown or retired signing key " + kid);
+    }
+    return key.publicKey();
+  }
+
+  @EventListener
+  public void onEnvironmentChange(EnvironmentChangeEvent event) {
+    if (event.getKeys().stream().anyMatch(key -> key.startsWith(PROPERTY))) {
+      try {
+        this.keysById = load();
+        log.info("Reloaded JWT signing keys {}", keysById.keySet());
+      } catch (IllegalStateException e) {
+        log.error("Keeping JWT signing keys {}: {}", keysById.keySet(), e.getMessage());
+      }
+    }
+  }
+
+  private Map<String, SigningKey> load() {
+    List<KeyProperties> configured =
+        Binder.get(environment)
+            .bind(PROPERTY, Bindable.listOf(KeyProperties.class))
+            .orElseGet(List::of);
+    List<SigningKey> keys = new ArrayList<>();
+    for (KeyProperties properties : configured) {
+      keys.add(properties.toSigningKey());
+    }
+    if (keys.isEmpty()) {
+      if (!generateEphemeralKey) {
+        throw new IllegalStateException(
+            "No "
+                + PROPERTY
+                + " configured; set jwt.signing.generateEphemeralKey=true for local development");
+      }
+      log.warn(
+          "No {} configured, generating an ephemeral ES256 key. Tokens will not survive a restart"
+              + " and are not accepted by other gateway nodes.",
+          PROPERTY);
+      keys.add(ephemeralKey());
+    }
+    Map<String, SigningKey> byId = new HashMap<>();
+    for (SigningKey key : keys) {
+      if (byId.put(key.kid(), key) != null) {
+        throw new IllegalStateException("Duplicate JWT signing key id " + key.kid());
+      }
+    }
+    return Map.copyOf(byId);
+  }
+
+  private static SigningKey ephemeralKey() {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+      KeyPair keyPair = generator.generateKeyPair();
+      return SigningKey.of(null, keyPair.getPublic(), keyPair.getPrivate(), null, null);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Could not generate an ES256 key pair", e);
+    }
+  }
+
+  /**
+   * A key of the ring.
+   *
+   * @param kid the key id written to and looked up from the token header
+   * @param publicKey verifies tokens
+   * @param privateKey signs tokens, {@code null} for verify-only keys
+   * @param activeFrom when the key starts signing
+   * @param expiresAt when tokens signed with the key stop being accepted, {@code null} for never
+   * @param jwkJson the public JWK representation
+   */
+  public record SigningKey(
+      String kid,
+      PublicKey publicKey,
+      PrivateKey privateKey,
+      Instant activeFrom,
+      Instant expiresAt,
+      String jwkJson) {
+
+    static SigningKey of(
+        String kid,
+        PublicKey publicKey,
+        PrivateKey privateKey,
+        Instant activeFrom,
+        Instant expiresAt) {
+      PublicJwk<?> jwk =
+          kid == null
+              ? Jwks.builder().key(publicKey).publicKeyUse("sig").idFromThumbprint().build()
+              : Jwks.builder().key(publicKey).publicKeyUse("sig").id(kid).build();
+      return new SigningKey(
+          jwk.getId(),
+          publicKey,
+          privateKey,
+          activeFrom == null ? Instant.EPOCH : activeFrom,
+          expiresAt,
+          Jwks.json(jwk));
+    }
+
+    boolean canVerify(Instant now) {
+      return expiresAt == null || now.isBefore(expiresAt);
+    }
+
+    boolean canSign(Instant now) {
+      return privateKey != null && !activeFrom.isAfter(now) && canVerify(now);
+    }
+  }
+
+  /**
+   * One entry of {@code jwt.signing.keys}. Keys are PEM or plain Base64 DER: X.509 for the public
+   * key and PKCS#8 for the private key.
+   *
+   * @param kid the key id, defaults to the RFC 7638 thumbprint of the public key
+   * @param algorithm {@code ES256} (P-256) or {@code EdDSA} (Ed25519)
+   * @param publicKey the public key
+   * @param privateKey the private key, omitted for verify-only keys
+   * @param activeFrom when the key starts signing, defaults to immediately
+   * @param expiresAt when the key stops verifying, defaults to never
+   */
+  public record KeyProperties(
+      String kid,
+      String algorithm,
+      String publicKey,
+      String privateKey,
+      Instant activeFrom,
+      Instant expiresAt) {
+
+    SigningKey toSigningKey() {
+      try {
+        KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm());
+        PublicKey publicPart =
+            keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey)));
+        PrivateKey privatePart =
+            privateKey == null || privateKey.isBlank()
+                ? null
+                : keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey)));
+        return SigningKey.of(kid, publicPart, privatePart, activeFrom, expiresAt);
+      } catch (GeneralSecurityException | IllegalArgumentException e) {
+        throw new IllegalStateException("Invalid JWT signing key " + kid, e);
+      }
+    }
+
+    private String keyFactoryAlgorithm() {
+      if (algorithm == null || algorithm.equalsIgnoreCase("ES256")) {
+        return "EC";
+      }
+      if (algorithm.equalsIgnoreCase("EdDSA")) {
+        return "Ed25519";
+      }
+      throw new IllegalArgumentException("Unsupported signing algorithm " + algorithm);
+    }
+
+    private static byte[] decodePem(String pem) {
+      if (pem == null) {
+        throw new IllegalArgumentException("Key material is missing");
+      }
+      String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+      return Base64.getDecoder().decode(base64);
+    }
+  }
+}
@@ -1,91 +1,132 @@
 package vaultweb.apigateway.util;
 
+import java.util.Collection;
 import java.util.Date;
-import java.util.function.Function;
-
-import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import vaultweb.apigateway.model.User;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 
 @Component
 public class JwtUtil {
-  private final SecretKey secretKey;
+  private final JwtKeyRing keyRing;
+  private final JwtParser jwtParser;
+
+  static final String USER_ID_CLAIM = "uid";
+  static final String ROLES_CLAIM = "roles";
+  static final String NAME_CLAIM = "name";
+  static final String EMAIL_CLAIM = "email";
 
   @Value("${jwt.expiration:3600000}") // 1 hour
   private Long jwtExpiration;
 
-  public JwtUtil(@Value("${jwt.secret}") String secret) {
-    this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+  @Value("${jwt.claims.roles:user}")
+  private List<String> defaultRoles;
+
+  @Value("${jwt.claims.userId:true}")
+  private boolean includeUserId;
+
+  @Value("${jwt.claims.profile:false}") // name and email
+  private boolean includeProfile;
+
+  public JwtUtil(JwtKeyRing keyRing) {
+    this.keyRing = keyRing;
+    // JwtParser is immutable and thread-safe, so one instance serves every request; the key ring
+    // resolves the verification key from the kid header
+    this.jwtParser = Jwts.parser().keyLocator(keyRing).build();
   }
 
   /**
-   * Generates a JWT token for the given email and name.
+   * Generates a JWT token for the given user, carrying the claims enabled under {@code jwt.claims}:
+   * the user id, the roles and optionally the name and email, so that downstream handlers can work
+   * from the verified token instead of looking the user up.
    *
-   * @param username the username of the user
+   * @param user the authenticated user
    * @return the generated JWT token
    */
-  public String generateToken(String username) {
+  public String generateToken(User user) {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put(ROLES_CLAIM, defaultRoles);
+    if (includeUserId && user.getId() != null) {
+      claims.put(USER_ID_CLAIM, user.getId());
+    }
+    if (includeProfile) {
+      claims.put(NAME_CLAIM, user.getName());
+      claims.put(EMAIL_CLAIM, user.getEmail());
+    }
+    return buildToken(user.getUsername(), claims);
+  }
+
+  private String buildToken(String username, Map<String, Object> claims) {
+    JwtKeyRing.SigningKey signingKey = keyRing.currentSigningKey();
     return Jwts.builder()
+        .header()
+        .keyId(signingKey.kid())
+        .and()
+        .id(UUID.randomUUID().toString())
         .subject(username)
-        // todo discuss roles?
-        .claim("roles", "user")
+        .claims(claims)
         .issuedAt(new Date())
         .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-        .signWith(secretKey)
+        .signWith(signingKey.privateKey())
         .compact();
   }
 
   /**
-   * Validates the given JWT token.
-   *
-   * @param token the JWT token to validate
-   * @return true if the token is valid, false otherwise
-   */
-  public boolean validateToken(String token) {
-    try {
-      Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token);
-      return true;
-    } catch (JwtException | IllegalArgumentException e) {
-      return false;
-    }
-  }
-
-  /**
-   * Extracts the email from the given JWT token.
+   * Verifies the signature and expiry of the given JWT token exactly once and returns its claims.
    *
-   * @param token the JWT token
-   * @return the email extracted from the token
+   * @param token the JWT token to verify
+   * @return the verified claims of the token
+   * @throws JwtException if the token is malformed, tampered with or expired
+   * @throws IllegalArgumentException if the token is null or blank
    */
-  public String extractSubject(String token) {
-    return extractClaim(token, Claims::getSubject);
+  public VerifiedClaims verify(String token) {
+    Claims claims = extractAllClaims(token);
+    return new VerifiedClaims(
+        claims.getSubject(),
+        claims.get(USER_ID_CLAIM, Integer.class),
+        extractRoles(claims),
+        claims.get(NAME_CLAIM, String.class),
+        claims.get(EMAIL_CLAIM, String.class),
+        claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+        claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+        claims.getId());
   }
 
   /**
-   * Extracts a specific claim from the given JWT token using the provided claims resolver function.
+   * Extracts all claims from the given JWT token.
    *
    * @param token the JWT token
-   * @param claimsResolver the function to extract the desired claim from the claims
-   * @param <T> the type of the claim to be extracted
-   * @return the extracted claim
+   * @return the claims contained in the token
    */
-  private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolver.apply(claims);
+  private Claims extractAllClaims(String token) {
+    return jwtParser.parseSignedClaims(token).getPayload();
   }
 
   /**
-   * Extracts all claims from the given JWT token.
+   * Reads the {@code roles} claim, which is either a single role string or a list of roles.
    *
-   * @param token the JWT token
-   * @return the claims contained in the token
+   * @param claims the verified claims
+   * @return the roles, or an empty list if the claim is absent
    */
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+  private static List<String> extractRoles(Claims claims) {
+    Object roles = claims.get(ROLES_CLAIM);
+    if (roles instanceof Collection<?> collection) {
+      return collection.stream().map(String::valueOf).toList();
+    }
+    if (roles != null) {
+      return List.of(roles.toString());
+    }
+    return List.of();
   }
 }
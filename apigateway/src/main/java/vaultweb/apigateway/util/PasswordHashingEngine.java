@@ -0,0 +1,281 @@
+package vaultweb.apigateway.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import vaultweb.apigateway.exceptions.ExpectedFailureException;
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs {@link BcryptUtil} operations on a dedicated, bounded worker pool so that the hundreds of
+ * milliseconds of CPU spent per hash never executes on a reactor-netty event loop.
+ *
+ * <p>The pool is sized to the available cores and backed by a fixed-capacity queue. When the queue
+ * is full the request fails fast with a {@link
+ * DefaultExceptionLevels#SERVICE_UNAVAILABLE_EXCEPTION} instead of piling up work, so a login storm
+ * degrades into 503s rather than stalling routing. Rejections are counted in {@code
+ * auth.hashing.rejected} and logged, sampled, by the error handler.
+ *
+ * <p>New hashes use {@code auth.hashing.cost}, which is raised to {@code auth.hashing.minCost} and
+ * must not exceed {@code auth.hashing.maxCost}. With the default of 0 the cost is calibrated at
+ * startup: the highest cost whose hash takes no longer than {@code auth.hashing.targetDuration} on
+ * this host, but never below {@code auth.hashing.minCost} nor above {@code auth.hashing.maxCost}.
+ * Stored hashes below that cost are reported by {@link #needsRehash(String)} and counted in {@code
+ * auth.hashing.verified{cost}}. Upgrading them goes through {@link #encodeIfIdle(String)}, which
+ * only uses spare workers, so a cost migration never takes queue slots from logins.
+ */
+@Component
+@Slf4j
+public class PasswordHashingEngine implements DisposableBean {
+  private final ThreadPoolExecutor executor;
+  private final int cost;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter[] verifiedByCost = new Counter[BcryptUtil.MAX_ROUNDS + 1];
+  private final Counter verifiedUnknownCost;
+  private final Counter rejected;
+  private final Semaphore idlePermits;
+  private final Counter skipped;
+
+  public PasswordHashingEngine(
+      @Value("${auth.hashing.threads:0}") int threads,
+      @Value("${auth.hashing.queueCapacity:64}") int queueCapacity,
+      @Value("${auth.hashing.cost:0}") int cost,
+      @Value("${auth.hashing.minCost:12}") int minCost,
+      @Value("${auth.hashing.maxCost:16}") int maxCost,
+      @Value("${auth.hashing.targetDuration:PT0.25S}") Duration targetDuration,
+      MeterRegistry meterRegistry) {
+    if (minCost < BcryptUtil.MIN_ROUNDS || maxCost > BcryptUtil.MAX_ROUNDS || minCost > maxCost) {
+      throw new IllegalArgumentException(
+          "auth.hashing.minCost and maxCost must satisfy 4 <= minCost <= maxCost <= 31");
+    }
+    // maxCost is at most BcryptUtil.MAX_ROUNDS, so this also rules out costs bcrypt cannot do
+    if (cost < 0 || cost > maxCost) {
+      throw new IllegalArgumentException(
+          "auth.hashing.cost must be 0 to calibrate, or at most maxCost " + maxCost);
+    }
+    this.cost =
+        cost > 0 ? Math.max(cost, minCost) : calibrate(minCost, maxCost, targetDuration.toNanos());
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread = new Thread(runnable, "bcrypt-" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    this.encodeTimer =
+        Timer.builder("auth.hashing.duration")
+            .description("Time spent computing a bcrypt hash")
+            .tag("operation", "encode")
+            .register(meterRegistry);
+    this.matchesTimer =
+        Timer.builder("auth.hashing.duration")
+            .description("Time spent computing a bcrypt hash")
+            .tag("operation", "matches")
+            .register(meterRegistry);
+    Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+        .description("Hashing tasks waiting for a worker")
+        .register(meterRegistry);
+    Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing workers currently busy")
+        .register(meterRegistry);
+    Gauge.builder("auth.hashing.cost", this, PasswordHashingEngine::getCost)
+        .description("bcrypt cost used for new hashes")
+        .register(meterRegistry);
+    for (int rounds = BcryptUtil.MIN_ROUNDS; rounds <= BcryptUtil.MAX_ROUNDS; rounds++) {
+      verifiedByCost[rounds] = verifiedCounter(meterRegistry, Integer.toString(rounds));
+    }
+    this.verifiedUnknownCost = verifiedCounter(meterRegistry, "unknown");
+    this.rejected =
+        Counter.builder("auth.hashing.rejected")
+            .description("Hashing tasks rejected because the queue was full")
+            .register(meterRegistry);
+    // at most a quarter of the workers do deferrable work at a time
+    this.idlePermits = new Semaphore(Math.max(1, poolSize / 4));
+    this.skipped =
+        Counter.builder("auth.hashing.skipped")
+            .description("Deferrable hashing tasks skipped because the pool was busy")
+            .register(meterRegistry);
+  }
+
+  private static Counter verifiedCounter(MeterRegistry meterRegistry, String cost) {
+    return Counter.builder("auth.hashing.verified")
+        .description("Password checks, by the bcrypt cost of the stored hash")
+        .tag("cost", cost)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Finds the highest cost between {@code minCost} and {@code maxCost} that hashes within the
+   * target. The time at {@code minCost} is measured and doubled per cost step, then the pick is
+   * measured once more, since the doubling is only approximate.
+   */
+  private static int calibrate(int minCost, int maxCost, long targetNanos) {
+    BcryptUtil.encode("calibration", minCost); // warm up
+    long[] samples = new long[3];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = timeEncode(minCost);
+    }
+    Arrays.sort(samples);
+    long atMinCost = samples[1];
+
+    int picked = minCost;
+    for (long estimate = atMinCost * 2;
+        picked < maxCost && estimate <= targetNanos;
+        estimate *= 2) {
+      picked++;
+    }
+    long atPicked = picked == minCost ? atMinCost : timeEncode(picked);
+    if (picked > minCost && atPicked > targetNanos) {
+      picked--;
+      atPicked /= 2;
+    }
+    if (atPicked > targetNanos) {
+      log.warn(
+          "bcrypt cost {} takes {} ms on this host, above the {} ms target; keeping the minimum",
+          minCost,
+          Duration.ofNanos(atMinCost).toMillis(),
+          Duration.ofNanos(targetNanos).toMillis());
+    } else {
+      log.info(
+          "Calibrated bcrypt cost {} (~{} ms per hash)",
+          picked,
+          Duration.ofNanos(atPicked).toMillis());
+    }
+    return picked;
+  }
+
+  private static long timeEncode(int cost) {
+    long started = System.nanoTime();
+    BcryptUtil.encode("calibration", cost);
+    return System.nanoTime() - started;
+  }
+
+  /** Returns the bcrypt cost used for new hashes. */
+  public int getCost() {
+    return cost;
+  }
+
+  /**
+   * Checks whether a stored hash was made at a lower cost than the current one. Hashes at a higher
+   * cost, for example from a node calibrated on faster hardware, are kept.
+   *
+   * @param hashedPassword from database
+   * @return true if the password should be hashed again after a successful check
+   */
+  public boolean needsRehash(final String hashedPassword) {
+    int rounds = BcryptUtil.rounds(hashedPassword);
+    return rounds >= 0 && rounds < cost;
+  }
+
+  /**
+   * Encodes the password on the hashing pool.
+   *
+   * @param password to be encoded
+   * @return a {@link Mono} emitting the hashed password
+   */
+  public Mono<String> encode(final String password) {
+    return submit(encodeTimer, () -> BcryptUtil.encode(password, cost));
+  }
+
+  /**
+   * Encodes the password on the hashing pool if it has spare capacity: nothing queued, a worker
+   * idle and fewer than a quarter of the workers busy with other deferrable tasks. Meant for work
+   * that can be retried later, such as upgrading a stored hash.
+   *
+   * @param password to be encoded
+   * @return a {@link Mono} emitting the hashed password, or completing empty when the pool is busy
+   */
+  public Mono<String> encodeIfIdle(final String password) {
+    return Mono.defer(
+        () -> {
+          if (!executor.getQueue().isEmpty()
+              || executor.getActiveCount() >= executor.getMaximumPoolSize()
+              || !idlePermits.tryAcquire()) {
+            skipped.increment();
+            return Mono.empty();
+          }
+          return encode(password).doFinally(signal -> idlePermits.release());
+        });
+  }
+
+  /**
+   * Checks on the hashing pool if the raw password matches the stored hash.
+   *
+   * @param password that is unencrypted
+   * @param hashedPassword from database
+   * @return a {@link Mono} emitting true if the passwords are the same
+   */
+  public Mono<Boolean> matches(final String password, final String hashedPassword) {
+    int rounds = BcryptUtil.rounds(hashedPassword);
+    Counter verified =
+        rounds >= BcryptUtil.MIN_ROUNDS && rounds <= BcryptUtil.MAX_ROUNDS
+            ? verifiedByCost[rounds]
+            : verifiedUnknownCost;
+    verified.increment();
+    return submit(matchesTimer, () -> BcryptUtil.matches(password, hashedPassword));
+  }
+
+  private <T> Mono<T> submit(Timer timer, Supplier<T> task) {
+    return Mono.<T>create(
+            sink -> {
+              try {
+                Future<?> future =
+                    executor.submit(
+                        () -> {
+                          T result;
+                          try {
+                            result = timer.record(task);
+                          } catch (RuntimeException e) {
+                            sink.error(e);
+                            return;
+                          }
+                          sink.success(result);
+                        });
+                sink.onCancel(() -> future.cancel(false));
+              } catch (RejectedExecutionException e) {
+                rejected.increment();
+                sink.error(
+                    new ExpectedFailureException(
+                        "Server is busy, please try again later",
+                        DefaultExceptionLevels.SERVICE_UNAVAILABLE_EXCEPTION));
+              }
+            })
+        // hand the continuation back so the hashing workers only ever run bcrypt
+        .publishOn(Schedulers.parallel());
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
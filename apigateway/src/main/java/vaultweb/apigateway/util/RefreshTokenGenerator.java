@@ -0,0 +1,113 @@
+package vaultweb.apigateway.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mints 256-bit, Base64URL-encoded refresh tokens.
+ *
+ * <p>Every thread owns a {@code DRBG} {@link SecureRandom} that is seeded once when the thread
+ * first asks for a token, together with reusable raw and encoded buffers, so minting never contends
+ * on a shared PRNG lock and never blocks on entropy. With {@code auth.refreshTokens.prefill} above
+ * zero, a background thread additionally keeps a bounded pool of ready tokens filled and the hot
+ * path only has to take one.
+ */
+@Component
+@Slf4j
+public class RefreshTokenGenerator implements DisposableBean {
+  static final int TOKEN_BYTES = 32;
+  // 32 bytes in unpadded Base64 take ceil(32 * 4 / 3) characters
+  static final int ENCODED_LENGTH = 43;
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+  private final BlockingQueue<String> pool;
+  private final Thread refiller;
+
+  public RefreshTokenGenerator(@Value("${auth.refreshTokens.prefill:0}") int prefill) {
+    if (prefill > 0) {
+      this.pool = new ArrayBlockingQueue<>(prefill);
+      this.refiller =
+          Thread.ofPlatform().name("refresh-token-prefill").daemon().unstarted(this::refill);
+      this.refiller.start();
+    } else {
+      this.pool = null;
+      this.refiller = null;
+    }
+  }
+
+  /**
+   * Returns a fresh refresh token, taken from the prefilled pool when one is available.
+   *
+   * @return a 43-character Base64URL token
+   */
+  public String nextToken() {
+    if (pool != null) {
+      String token = pool.poll();
+      if (token != null) {
+        return token;
+      }
+    }
+    return generate();
+  }
+
+  /**
+   * Mints a token on the calling thread, bypassing the pool.
+   *
+   * @return a 43-character Base64URL token
+   */
+  public String generate() {
+    return state.get().next();
+  }
+
+  private void refill() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        pool.put(generate());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (refiller != null) {
+      refiller.interrupt();
+    }
+  }
+
+  /** Per-thread generator state. */
+  private static final class State {
+    private final SecureRandom random = newDrbg();
+    private final byte[] raw = new byte[TOKEN_BYTES];
+    private final byte[] encoded = new byte[ENCODED_LENGTH];
+
+    String next() {
+      random.nextBytes(raw);
+      ENCODER.encode(raw, encoded);
+      return new String(encoded, StandardCharsets.ISO_8859_1);
+    }
+
+    private static SecureRandom newDrbg() {
+      try {
+        return SecureRandom.getInstance(
+            "DRBG", DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+      } catch (NoSuchAlgorithmException e) {
+        log.warn("DRBG is not available, falling back to the default SecureRandom");
+        return new SecureRandom();
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package vaultweb.apigateway.util;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The {@code jti}s of revoked, not yet expired access tokens, checked on every authenticated
+ * request.
+ *
+ * <p>A Bloom filter sits in front of the exact set, so the common case, a token that was never
+ * revoked, is answered from a few bits without a hash table probe. The exact set removes the
+ * filter's false positives. Entries are dropped by {@link #prune(Instant)} once their token has
+ * expired, and the filter is rebuilt from what is left, since Bloom filters cannot delete.
+ *
+ * <p>Lookups take no lock. Additions and rebuilds are serialized; they only happen on logout and
+ * pruning.
+ */
+@Component
+public class RevokedTokenSet {
+  private static final int HASHES = 7; // optimal for ~1% false positives
+
+  private final int expectedEntries;
+  private final ConcurrentHashMap<String, Instant> entries = new ConcurrentHashMap<>();
+  private volatile BloomFilter filter;
+
+  public RevokedTokenSet(
+      @Value("${auth.revocation.expectedEntries:100000}") int expectedEntries,
+      MeterRegistry meterRegistry) {
+    this.expectedEntries = expectedEntries;
+    this.filter = new BloomFilter(expectedEntries);
+    Gauge.builder("auth.revocation.entries", entries, ConcurrentHashMap::size)
+        .description("Revoked access tokens that have not expired yet")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Checks whether the token with the given id was revoked.
+   *
+   * @param jti the token id
+   * @return true if the token must be rejected
+   */
+  public boolean isRevoked(String jti) {
+    return jti != null && filter.mightContain(jti) && entries.containsKey(jti);
+  }
+
+  /**
+   * Adds a revoked token.
+   *
+   * @param jti the token id
+   * @param expiresAt the token's expiry, after which the entry is dropped
+   */
+  public synchronized void add(String jti, Instant expiresAt) {
+    // exact set first: a reader that sees the filter bits must also find the entry
+    if (entries.put(jti, expiresAt) == null) {
+      filter.put(jti);
+    }
+  }
+
+  /**
+   * Drops the entries of expired tokens and rebuilds the filter from the remaining ones.
+   *
+   * @param now the current time
+   * @return the number of dropped entries
+   */
+  public synchronized int prune(Instant now) {
+    int before = entries.size();
+    entries.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    int removed = before - entries.size();
+    if (removed > 0 || entries.size() > expectedEntries) {
+      BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, entries.size() * 2));
+      entries.keySet().forEach(rebuilt::put);
+      filter = rebuilt;
+    }
+    return removed;
+  }
+
+  /** Returns the number of revoked tokens currently tracked. */
+  public int size() {
+    return entries.size();
+  }
+
+  /** Fixed-size Bloom filter over strings, using double hashing of one 64-bit hash. */
+  private static final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+
+    BloomFilter(int expectedEntries) {
+      // m = -n ln(p) / ln(2)^2 with p = 1%, about 9.6 bits per entry
+      long wanted = (long) Math.ceil(Math.max(1, expectedEntries) * 9.6);
+      int words = (int) Math.min(Integer.MAX_VALUE, (wanted + 63) / 64);
+      this.bits = new AtomicLongArray(words);
+      this.bitCount = (long) words * 64;
+    }
+
+    void put(String value) {
+      long hash = hash(value);
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32);
+      for (int i = 0; i < HASHES; i++) {
+        long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+          current = bits.get(word);
+        } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+      }
+    }
+
+    boolean mightContain(String value) {
+      long hash = hash(value);
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32);
+      for (int i = 0; i < HASHES; i++) {
+        long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+        if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** FNV-1a over the chars, finished with the MurmurHash3 mixer. */
+    private static long hash(String value) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < value.length(); i++) {
+        hash ^= value.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+    }
+  }
+}
@@ -5,7 +5,7 @@ import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Component;
 
-import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.ExpectedFailureException;
 import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
 
 import reactor.core.publisher.Mono;
@@ -20,8 +20,27 @@ public class SecurityContextUtil {
         .map(Authentication::getName)
         .switchIfEmpty(
             Mono.error(
-                new DefaultException(
-                    "User not authenticated", DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
+                () ->
+                    new ExpectedFailureException(
+                        "User not authenticated",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
+  }
+
+  /**
+   * Returns the verified access token claims of the authenticated user.
+   *
+   * @return the claims, or an error if the request was not authenticated with an access token
+   */
+  public Mono<VerifiedClaims> getVerifiedClaims() {
+    return getAuthentication()
+        .flatMap(
+            authentication ->
+                authentication.getDetails() instanceof VerifiedClaims claims
+                    ? Mono.just(claims)
+                    : Mono.error(
+                        new ExpectedFailureException(
+                            "User not authenticated",
+                            DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
   }
 
   public Mono<Authentication> getAuthentication() {
@@ -29,7 +48,9 @@ public class SecurityContextUtil {
         .map(SecurityContext::getAuthentication)
         .switchIfEmpty(
             Mono.error(
-                new DefaultException(
-                    "User not authenticated", DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
+                () ->
+                    new ExpectedFailureException(
+                        "User not authenticated",
+                        DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
   }
 }
@@ -0,0 +1,64 @@
+package vaultweb.apigateway.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A bounded set of token buckets, one per key, each allowing {@code capacity} acquisitions at once
+ * and refilling at {@code capacity} per {@code period}.
+ *
+ * <p>A bucket is a single {@link AtomicLong} holding its theoretical arrival time (the generic cell
+ * rate algorithm), so acquiring is one compare-and-set with no lock and no refill timer. Buckets
+ * live in a size-bounded Caffeine cache, whose hash table is lock-striped; an idle bucket is
+ * dropped once it would have refilled completely, and under key floods the least valuable keys are
+ * evicted first, so memory stays bounded.
+ */
+public class TokenBuckets {
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final long origin = System.nanoTime();
+  private final Cache<String, AtomicLong> buckets;
+
+  public TokenBuckets(int capacity, Duration period, long maxKeys) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Token bucket capacity must be at least 1");
+    }
+    this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+    this.toleranceNanos = intervalNanos * capacity;
+    this.buckets =
+        Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofNanos(toleranceNanos))
+            .build();
+  }
+
+  /**
+   * Takes one token from the key's bucket.
+   *
+   * @param key the bucket key
+   * @return {@link Duration#ZERO} if a token was taken, otherwise how long until one is available
+   */
+  public Duration tryAcquire(String key) {
+    AtomicLong arrival = buckets.get(key, ignored -> new AtomicLong());
+    long now = System.nanoTime() - origin;
+    while (true) {
+      long current = arrival.get();
+      long next = Math.max(current, now) + intervalNanos;
+      long excess = next - now - toleranceNanos;
+      if (excess > 0) {
+        return Duration.ofNanos(excess);
+      }
+      if (arrival.compareAndSet(current, next)) {
+        return Duration.ZERO;
+      }
+    }
+  }
+
+  /** Returns the approximate number of tracked keys. */
+  public long size() {
+    return buckets.estimatedSize();
+  }
+}
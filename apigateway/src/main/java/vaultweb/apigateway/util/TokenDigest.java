@@ -0,0 +1,31 @@
+package vaultweb.apigateway.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** SHA-256 digests of bearer secrets, so raw tokens never need to be stored or used as keys. */
+public final class TokenDigest {
+  private static final ThreadLocal<MessageDigest> SHA_256 =
+      ThreadLocal.withInitial(TokenDigest::newDigest);
+
+  private TokenDigest() {}
+
+  /**
+   * Computes the SHA-256 digest of the UTF-8 bytes of the token.
+   *
+   * @param token the raw token
+   * @return the 32-byte digest
+   */
+  public static byte[] sha256(String token) {
+    return SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package vaultweb.apigateway.util;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable view of the claims of an access token whose signature and expiry have already been
+ * verified by {@link JwtUtil#verify(String)}.
+ *
+ * @param subject the username the token was issued to
+ * @param userId the id of the user, {@code null} if the token carries no {@code uid} claim
+ * @param roles the roles granted to the subject, never {@code null}
+ * @param name the display name of the user, {@code null} unless profile claims are enabled
+ * @param email the email of the user, {@code null} unless profile claims are enabled
+ * @param issuedAt when the token was issued
+ * @param expiresAt when the token expires
+ * @param jti the unique token id, may be {@code null} for tokens issued before ids were added
+ */
+public record VerifiedClaims(
+    String subject,
+    Integer userId,
+    List<String> roles,
+    String name,
+    String email,
+    Instant issuedAt,
+    Instant expiresAt,
+    String jti) {
+  public VerifiedClaims {
+    roles = roles == null ? List.of() : List.copyOf(roles);
+  }
+
+  /** Returns true if the token carries the profile needed to answer {@code /auth/me}. */
+  public boolean hasProfile() {
+    return name != null && email != null;
+  }
+}
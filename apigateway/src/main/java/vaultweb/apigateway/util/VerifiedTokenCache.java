@@ -0,0 +1,86 @@
+package vaultweb.apigateway.util;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-memory cache of access tokens that already passed signature verification.
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the token so the raw bearer string is never
+ * retained, and each entry expires no later than the token's own {@code exp} claim. Hit, miss and
+ * eviction counts are published under {@code auth.token.cache}.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final Cache<ByteBuffer, Entry> cache;
+
+  public VerifiedTokenCache(
+      @Value("${auth.tokenCache.maxSize:10000}") long maxSize, MeterRegistry meterRegistry) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new ExpireAtTokenExpiry())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.cache");
+  }
+
+  /**
+   * Returns the cached verification result for the token, running the verifier on a miss.
+   *
+   * <p>Exceptions thrown by the verifier propagate to the caller and nothing is cached, so invalid
+   * tokens are re-verified (and rejected) on every request.
+   *
+   * @param token the raw bearer token
+   * @param verifier verifies the token and resolves its authentication
+   * @return the cached or freshly verified entry
+   */
+  public Entry get(String token, Function<String, Entry> verifier) {
+    return cache.get(ByteBuffer.wrap(TokenDigest.sha256(token)), key -> verifier.apply(token));
+  }
+
+  /**
+   * A verified token together with the {@link Authentication} resolved from it.
+   *
+   * @param claims the verified claims of the token
+   * @param authentication the authentication to place into the security context
+   */
+  public record Entry(VerifiedClaims claims, Authentication authentication) {}
+
+  /** Expires each entry at the {@code exp} claim of the token it was created for. */
+  private static final class ExpireAtTokenExpiry implements Expiry<ByteBuffer, Entry> {
+    @Override
+    public long expireAfterCreate(ByteBuffer key, Entry value, long currentTime) {
+      Instant expiresAt = value.claims().expiresAt();
+      if (expiresAt == null) {
+        return 0L;
+      }
+      return Math.max(0L, Duration.between(Instant.now(), expiresAt).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+-- Users. Uniqueness of email and username is enforced here, registration relies on it instead of
+-- checking first; AuthService maps violations back by index name.
+--
+-- Written to be idempotent so that databases created before migrations existed can be baselined
+-- at version 0 and still pick it up.
+CREATE TABLE IF NOT EXISTS users (
+    id       SERIAL PRIMARY KEY,
+    name     VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_key ON users (email);
+CREATE UNIQUE INDEX IF NOT EXISTS users_username_key ON users (username);
+
+-- Refresh tokens, one row per user. Only the SHA-256 digest of a token is stored.
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGSERIAL PRIMARY KEY,
+    user_id     INTEGER     NOT NULL,
+    token_hash  BYTEA       NOT NULL,
+    expiry_date TIMESTAMPTZ NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL
+);
+
+-- Collapse duplicates left behind by the former delete-then-insert issuance before the
+-- unique index below is created.
+DELETE FROM refresh_tokens older
+    USING refresh_tokens newer
+    WHERE older.user_id = newer.user_id
+      AND older.id < newer.id;
+
+-- Backs the ON CONFLICT (user_id) upsert in RefreshTokenRepository#upsertForUser.
+CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_user_id_key ON refresh_tokens (user_id);
+
+-- Upgrade tables that still hold raw tokens: digest them in place so tokens already handed to
+-- clients keep working. The temporary ADD COLUMN makes the backfill a no-op on fresh tables.
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash BYTEA;
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token VARCHAR(64);
+UPDATE refresh_tokens
+    SET token_hash = sha256(convert_to(token, 'UTF8'))
+    WHERE token_hash IS NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_tokens DROP COLUMN IF EXISTS token;
+
+-- Fixed-width 32-byte lookup key for RefreshTokenRepository#rotate.
+CREATE UNIQUE INDEX IF NOT EXISTS refresh_tokens_token_hash_key ON refresh_tokens (token_hash);
+
+-- Range scan for the chunked deletes of RefreshTokenSweeper.
+CREATE INDEX IF NOT EXISTS refresh_tokens_expiry_date_idx ON refresh_tokens (expiry_date);
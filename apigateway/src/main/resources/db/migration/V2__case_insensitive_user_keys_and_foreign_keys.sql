@@ -0,0 +1,23 @@
+-- Email addresses and usernames are unique regardless of case, and login looks both up through
+-- lower(), so the unique indexes move onto the lower() expressions. The names stay the same since
+-- AuthService maps registration conflicts back by index name.
+-- Fails if the table already holds values that only differ in case; resolve those by hand first.
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_email_key;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_username_key;
+DROP INDEX IF EXISTS users_email_key;
+DROP INDEX IF EXISTS users_username_key;
+
+CREATE UNIQUE INDEX users_email_key ON users (lower(email));
+CREATE UNIQUE INDEX users_username_key ON users (lower(username));
+
+-- Refresh tokens of deleted users can never be used again.
+DELETE FROM refresh_tokens
+    WHERE NOT EXISTS (SELECT 1 FROM users WHERE users.id = refresh_tokens.user_id);
+
+-- refresh_tokens_user_id_key from V1 already indexes the referencing column, so deleting a user
+-- does not scan refresh_tokens. Tables created by hand often already carry a foreign key under
+-- the default name, without the cascade, so it is replaced.
+ALTER TABLE refresh_tokens DROP CONSTRAINT IF EXISTS refresh_tokens_user_id_fkey;
+ALTER TABLE refresh_tokens
+    ADD CONSTRAINT refresh_tokens_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE;
@@ -0,0 +1,24 @@
+-- Access tokens revoked before their expiry, by jti. Rows are only needed until expires_at, after
+-- which the token is rejected anyway; RefreshTokenSweeper deletes them. Nothing else does, so with
+-- auth.refreshTokenSweeper.enabled=false the table keeps every revocation.
+CREATE TABLE revoked_tokens (
+    jti        VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Catch-up load on startup and the sweeper's delete.
+CREATE INDEX revoked_tokens_expires_at_idx ON revoked_tokens (expires_at);
+
+-- Every gateway node LISTENs on revoked_tokens and adds the jti to its in-memory set. The payload
+-- is "<jti> <expires_at as epoch seconds>". Notifications are delivered on commit.
+CREATE FUNCTION notify_revoked_token() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('revoked_tokens', NEW.jti || ' ' || floor(extract(epoch FROM NEW.expires_at))::bigint);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER revoked_tokens_notify
+    AFTER INSERT ON revoked_tokens
+    FOR EACH ROW EXECUTE FUNCTION notify_revoked_token();
@@ -3,7 +3,12 @@ package vaultweb.apigateway;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(
+    properties = {
+      // no database in the test context, so skip the startup migration
+      "spring.flyway.enabled=false",
+      "jwt.signing.generateEphemeralKey=true"
+    })
 class ApigatewayApplicationTests {
 
   @Test
@@ -0,0 +1,150 @@
+package vaultweb.apigateway.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.WebFilterChain;
+
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.util.JwtKeyRing;
+import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedClaims;
+import vaultweb.apigateway.util.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtAuthenticationFilterTest {
+  private final AtomicReference<Authentication> authentication = new AtomicReference<>();
+  private final WebFilterChain chain =
+      exchange ->
+          ReactiveSecurityContextHolder.getContext()
+              .map(SecurityContext::getAuthentication)
+              .doOnNext(authentication::set)
+              .then();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RevokedTokenSet revokedTokens = new RevokedTokenSet(100, meterRegistry);
+  private final User alice = User.builder().id(1).username("alice").build();
+  private JwtUtil jwtUtil;
+  private JwtAuthenticationFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    JwtUtil real = new JwtUtil(new JwtKeyRing(new MockEnvironment(), "", null, true));
+    ReflectionTestUtils.setField(real, "jwtExpiration", Duration.ofHours(1).toMillis());
+    ReflectionTestUtils.setField(real, "defaultRoles", List.of("user"));
+    jwtUtil = spy(real);
+    filter =
+        new JwtAuthenticationFilter(
+            jwtUtil,
+            new VerifiedTokenCache(100, new SimpleMeterRegistry()),
+            new PublicRouteMatcher(
+                new MockEnvironment().withProperty("auth.publicUrls", "/auth/login")),
+            revokedTokens,
+            new ErrorResponseWriter(),
+            meterRegistry);
+  }
+
+  @Test
+  void verifiesEachTokenOnce() {
+    String token = jwtUtil.generateToken(alice);
+
+    for (int i = 0; i < 3; i++) {
+      authentication.set(null);
+      MockServerWebExchange exchange = exchange("Bearer " + token);
+      filter.filter(exchange, chain).block();
+
+      assertNull(exchange.getResponse().getStatusCode());
+      assertEquals("alice", authentication.get().getName());
+    }
+    verify(jwtUtil, times(1)).verify(token);
+    assertEquals(3, requests("accepted", "token"));
+    assertEquals(1, meterRegistry.timer("auth.token.verify.duration").count());
+  }
+
+  @Test
+  void verifiesRejectedTokensEveryTime() {
+    for (int i = 0; i < 2; i++) {
+      MockServerWebExchange exchange = exchange("Bearer not.a.token");
+      filter.filter(exchange, chain).block();
+
+      assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+    assertNull(authentication.get());
+    verify(jwtUtil, times(2)).verify(anyString());
+    assertEquals(2, requests("rejected", "malformed"));
+  }
+
+  @Test
+  void rejectsRevokedTokenAlreadyInTheCache() {
+    String token = jwtUtil.generateToken(alice);
+    filter.filter(exchange("Bearer " + token), chain).block();
+
+    VerifiedClaims claims = jwtUtil.verify(token);
+    revokedTokens.add(claims.jti(), claims.expiresAt());
+    authentication.set(null);
+    MockServerWebExchange exchange = exchange("Bearer " + token);
+    filter.filter(exchange, chain).block();
+
+    assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    assertNull(authentication.get());
+    assertEquals(1, requests("rejected", "revoked"));
+  }
+
+  @Test
+  void rejectsRequestWithoutToken() {
+    MockServerWebExchange exchange = exchange(null);
+
+    filter.filter(exchange, chain).block();
+
+    assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    assertNull(authentication.get());
+    assertEquals(1, requests("rejected", "missing_token"));
+  }
+
+  @Test
+  void letsPublicEndpointsThrough() {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(MockServerHttpRequest.post("/auth/login"));
+
+    filter.filter(exchange, chain).block();
+
+    assertNull(exchange.getResponse().getStatusCode());
+    verify(jwtUtil, times(0)).verify(anyString());
+    assertEquals(1, requests("accepted", "public"));
+  }
+
+  private double requests(String result, String reason) {
+    return meterRegistry
+        .counter("auth.filter.requests", "result", result, "reason", reason)
+        .count();
+  }
+
+  private static MockServerWebExchange exchange(String authorization) {
+    MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/cloud/files");
+    if (authorization != null) {
+      request.header("Authorization", authorization);
+    }
+    return MockServerWebExchange.from(request);
+  }
+}
@@ -0,0 +1,121 @@
+package vaultweb.apigateway.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.util.JwtKeyRing;
+import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class JwtGatewayFilterFactoryTest {
+  private final AtomicBoolean routed = new AtomicBoolean();
+  private final GatewayFilterChain chain =
+      exchange -> {
+        routed.set(true);
+        return Mono.empty();
+      };
+
+  private final User alice = User.builder().id(1).username("alice").build();
+  private JwtUtil jwtUtil;
+  private JwtAuthenticationFilter authenticationFilter;
+  private JwtGatewayFilterFactory factory;
+
+  @BeforeEach
+  void setUp() {
+    jwtUtil = new JwtUtil(new JwtKeyRing(new MockEnvironment(), "", null, true));
+    ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", Duration.ofHours(1).toMillis());
+    ReflectionTestUtils.setField(jwtUtil, "defaultRoles", List.of("user"));
+    authenticationFilter =
+        new JwtAuthenticationFilter(
+            jwtUtil,
+            new VerifiedTokenCache(100, new SimpleMeterRegistry()),
+            new PublicRouteMatcher(new MockEnvironment()),
+            new RevokedTokenSet(100, new SimpleMeterRegistry()),
+            new ErrorResponseWriter(),
+            new SimpleMeterRegistry());
+    factory = new JwtGatewayFilterFactory(authenticationFilter, new ErrorResponseWriter());
+  }
+
+  @Test
+  void reusesAuthenticationFromSecurityChain() {
+    MockServerWebExchange exchange = exchange(jwtUtil.generateToken(alice));
+    authenticationFilter.filter(exchange, ignored -> Mono.empty()).block();
+    // the route filter must not look at the header again
+    ServerWebExchange withoutHeader =
+        exchange
+            .mutate()
+            .request(
+                request -> request.headers(headers -> headers.remove(HttpHeaders.AUTHORIZATION)))
+            .build();
+
+    filter(List.of("user")).filter(withoutHeader, chain).block();
+
+    assertTrue(routed.get());
+    assertNull(withoutHeader.getResponse().getStatusCode());
+  }
+
+  @Test
+  void authenticatesWhenRouteFilterRunsFirst() {
+    MockServerWebExchange exchange = exchange(jwtUtil.generateToken(alice));
+
+    filter(List.of()).filter(exchange, chain).block();
+
+    assertTrue(routed.get());
+  }
+
+  @Test
+  void rejectsCallerWithoutRequiredRole() {
+    MockServerWebExchange exchange = exchange(jwtUtil.generateToken(alice));
+
+    filter(List.of("admin")).filter(exchange, chain).block();
+
+    assertFalse(routed.get());
+    assertEquals(HttpStatus.FORBIDDEN, exchange.getResponse().getStatusCode());
+  }
+
+  @Test
+  void rejectsUnauthenticatedCaller() {
+    MockServerWebExchange exchange = exchange("not.a.token");
+
+    filter(List.of()).filter(exchange, chain).block();
+
+    assertFalse(routed.get());
+    assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+  }
+
+  private GatewayFilter filter(List<String> requiredRoles) {
+    JwtGatewayFilterFactory.Config config = new JwtGatewayFilterFactory.Config();
+    config.setRequiredRoles(requiredRoles);
+    return factory.apply(config);
+  }
+
+  private static MockServerWebExchange exchange(String token) {
+    return MockServerWebExchange.from(
+        MockServerHttpRequest.get("/api/cloud/files")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+  }
+}
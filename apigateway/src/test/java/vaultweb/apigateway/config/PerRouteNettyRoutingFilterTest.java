@@ -0,0 +1,90 @@
+package vaultweb.apigateway.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+class PerRouteNettyRoutingFilterTest {
+
+  /** Fails when reactor-netty renames or replaces the pool's pending-limit rejection. */
+  @Test
+  void detectsFullPendingAcquireQueue() {
+    DisposableServer server =
+        HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle(
+                (request, response) ->
+                    response.sendString(Mono.just("ok").delayElement(Duration.ofSeconds(1))))
+            .bindNow();
+    ConnectionProvider provider =
+        ConnectionProvider.builder("pending-limit-test")
+            .maxConnections(1)
+            .pendingAcquireMaxCount(1)
+            .build();
+    try {
+      HttpClient client = HttpClient.create(provider).baseUrl("http://127.0.0.1:" + server.port());
+      // one request holds the connection, one waits for it, the third is rejected
+      List<Throwable> errors =
+          Flux.range(0, 3)
+              .flatMap(
+                  i ->
+                      client
+                          .get()
+                          .uri("/")
+                          .responseContent()
+                          .aggregate()
+                          .asString()
+                          .then(Mono.<Throwable>empty())
+                          .onErrorResume(Mono::just))
+              .collectList()
+              .block(Duration.ofSeconds(10));
+
+      assertNotNull(errors);
+      assertEquals(1, errors.size(), () -> "Expected one rejection, got " + errors);
+      assertEquals(
+          DefaultExceptionLevels.SERVICE_UNAVAILABLE_EXCEPTION,
+          PerRouteNettyRoutingFilter.upstreamErrorLevel(errors.get(0)),
+          () -> "Not detected as a full queue: " + errors.get(0));
+    } finally {
+      provider.disposeLater().block(Duration.ofSeconds(5));
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void classifiesUpstreamErrors() {
+    assertEquals(
+        DefaultExceptionLevels.TIMEOUT_EXCEPTION,
+        PerRouteNettyRoutingFilter.upstreamErrorLevel(
+            new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT)));
+    assertEquals(
+        DefaultExceptionLevels.TIMEOUT_EXCEPTION,
+        PerRouteNettyRoutingFilter.upstreamErrorLevel(new TimeoutException()));
+    assertEquals(
+        DefaultExceptionLevels.HTTP_ERROR_EXCEPTION,
+        PerRouteNettyRoutingFilter.upstreamErrorLevel(new IOException("Connection refused")));
+    assertNull(
+        PerRouteNettyRoutingFilter.upstreamErrorLevel(
+            new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    assertNull(PerRouteNettyRoutingFilter.upstreamErrorLevel(new IllegalStateException()));
+  }
+}
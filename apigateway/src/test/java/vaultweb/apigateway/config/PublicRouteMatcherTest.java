@@ -0,0 +1,76 @@
+package vaultweb.apigateway.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+class PublicRouteMatcherTest {
+  private final PublicRouteMatcher.Rules rules =
+      PublicRouteMatcher.compile(
+          new String[] {
+            "/auth/login",
+            " GET /.well-known/jwks.json ",
+            "post /auth/register",
+            "/auth/switch-jwt/**",
+            "GET /docs/*/index.html",
+            "/files/{id}",
+            ""
+          });
+
+  @Test
+  void matchesLiteralPathsForAnyMethod() {
+    assertTrue(matches(HttpMethod.POST, "/auth/login"));
+    assertTrue(matches(HttpMethod.GET, "/auth/login"));
+    assertFalse(matches(HttpMethod.POST, "/auth/login/"));
+    assertFalse(matches(HttpMethod.POST, "/auth/logi"));
+  }
+
+  @Test
+  void restrictsMethodScopedEntriesToTheirMethod() {
+    assertTrue(matches(HttpMethod.GET, "/.well-known/jwks.json"));
+    assertFalse(matches(HttpMethod.POST, "/.well-known/jwks.json"));
+    assertTrue(matches(HttpMethod.POST, "/auth/register"));
+    assertFalse(matches(HttpMethod.GET, "/auth/register"));
+    assertTrue(matches(HttpMethod.GET, "/docs/v1/index.html"));
+    assertFalse(matches(HttpMethod.DELETE, "/docs/v1/index.html"));
+  }
+
+  @Test
+  void matchesWildcardPatternsThroughTheTrie() {
+    assertTrue(matches(HttpMethod.POST, "/auth/switch-jwt"));
+    assertTrue(matches(HttpMethod.POST, "/auth/switch-jwt/a/b"));
+    assertFalse(matches(HttpMethod.POST, "/auth/switch-jwt-other"));
+    assertFalse(matches(HttpMethod.POST, "/auth/switch"));
+    assertTrue(matches(HttpMethod.GET, "/files/42"));
+    assertFalse(matches(HttpMethod.GET, "/files/42/raw"));
+    assertFalse(matches(HttpMethod.GET, "/docs/v1/v2/index.html"));
+    assertFalse(matches(HttpMethod.GET, "/"));
+    assertFalse(matches(HttpMethod.GET, "/users/me"));
+  }
+
+  @Test
+  void reloadsRulesOnConfigurationRefresh() {
+    MockEnvironment environment = new MockEnvironment().withProperty("auth.publicUrls", "/a");
+    PublicRouteMatcher matcher = new PublicRouteMatcher(environment);
+    assertTrue(matcher.isPublic(MockServerHttpRequest.get("/a").build()));
+
+    environment.setProperty("auth.publicUrls", "GET /b/**");
+    matcher.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("auth.publicUrls")));
+
+    assertFalse(matcher.isPublic(MockServerHttpRequest.get("/a").build()));
+    assertTrue(matcher.isPublic(MockServerHttpRequest.get("/b/c").build()));
+    assertFalse(matcher.isPublic(MockServerHttpRequest.post("/b/c").build()));
+  }
+
+  private boolean matches(HttpMethod method, String path) {
+    return rules.matches(method, PathContainer.parsePath(path));
+  }
+}
@@ -0,0 +1,79 @@
+package vaultweb.apigateway.exceptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import org.springframework.mock.env.MockEnvironment;
+
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ErrorLogPolicyTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void logsUnexpectedErrorsInFullByDefault() {
+    ErrorLogPolicy policy = new ErrorLogPolicy(new MockEnvironment(), meterRegistry);
+
+    assertEquals(Level.ERROR, policy.record(new DefaultException("boom")));
+    assertEquals(
+        Level.WARN,
+        policy.record(new DefaultException("bad json", DefaultExceptionLevels.PARSE_EXCEPTION)));
+  }
+
+  @Test
+  void countsOccurrencesThatAreNotLogged() {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("auth.errorLogging.AUTHENTICATION_EXCEPTION.level", "off")
+            .withProperty("auth.errorLogging.AUTHORIZATION_EXCEPTION.sampleRate", "0");
+    ErrorLogPolicy policy = new ErrorLogPolicy(environment, meterRegistry);
+
+    for (int i = 0; i < 3; i++) {
+      assertNull(policy.record(failure(DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
+      assertNull(policy.record(failure(DefaultExceptionLevels.AUTHORIZATION_EXCEPTION)));
+    }
+
+    assertEquals(3, errors("authentication_exception"));
+    assertEquals(3, errors("authorization_exception"));
+  }
+
+  @Test
+  void countsDuplicateRegistrationsAsClientErrors() {
+    MockEnvironment environment =
+        new MockEnvironment().withProperty("auth.errorLogging.DUPLICATE_EXCEPTION.sampleRate", "0");
+    ErrorLogPolicy policy = new ErrorLogPolicy(environment, meterRegistry);
+
+    assertNull(policy.record(failure(DefaultExceptionLevels.DUPLICATE_EXCEPTION)));
+    assertEquals(1, errors("duplicate_exception"));
+  }
+
+  @Test
+  void appliesConfiguredLevelAndSampleRate() {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("auth.errorLogging.AUTHENTICATION_EXCEPTION.level", "debug")
+            .withProperty("auth.errorLogging.AUTHENTICATION_EXCEPTION.sampleRate", "1");
+    ErrorLogPolicy policy = new ErrorLogPolicy(environment, meterRegistry);
+
+    assertEquals(
+        Level.DEBUG, policy.record(failure(DefaultExceptionLevels.AUTHENTICATION_EXCEPTION)));
+  }
+
+  @Test
+  void expectedFailuresCaptureNoStackTrace() {
+    assertEquals(
+        0, failure(DefaultExceptionLevels.AUTHENTICATION_EXCEPTION).getStackTrace().length);
+  }
+
+  private static ExpectedFailureException failure(DefaultExceptionLevels level) {
+    return new ExpectedFailureException("Invalid email or password", level);
+  }
+
+  private double errors(String level) {
+    return meterRegistry.counter("auth.errors", "level", level).count();
+  }
+}
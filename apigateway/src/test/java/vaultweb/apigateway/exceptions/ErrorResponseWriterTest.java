@@ -0,0 +1,91 @@
+package vaultweb.apigateway.exceptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ErrorResponseWriterTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "plain message",
+        "quote \" and backslash \\ and slash /",
+        "line\nfeed\rtab\tback\bform\f",
+        "\u0000\u0001\u001f\u007f",
+        "café üß € 中文 ￿",
+        "emoji 😀 and 𝄞"
+      })
+  void escapesMessageAsValidJson(String message) throws Exception {
+    assertEquals(message, MAPPER.readTree(escaped(message)).asText());
+  }
+
+  @Test
+  void escapesEveryControlCharacter() throws Exception {
+    StringBuilder message = new StringBuilder();
+    for (char c = 0; c < 0x20; c++) {
+      message.append(c);
+    }
+    assertEquals(message.toString(), MAPPER.readTree(escaped(message.toString())).asText());
+  }
+
+  @Test
+  void replacesUnpairedSurrogates() throws Exception {
+    String message = "high \ud83d end, low \ude00 end, reversed \ude00\ud83d, last \ud83d";
+
+    assertEquals(
+        new String(message.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+        MAPPER.readTree(escaped(message)).asText());
+  }
+
+  @Test
+  void writesCompleteErrorBody() throws Exception {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.method(HttpMethod.GET, URI.create("/api/caf%C3%A9/%22x%22"))
+                .build());
+
+    new ErrorResponseWriter()
+        .write(exchange, HttpStatus.UNAUTHORIZED, "Bad \"token\"\n😀")
+        .block(Duration.ofSeconds(5));
+
+    assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+    JsonNode body = MAPPER.readTree(exchange.getResponse().getBodyAsString().block());
+    assertEquals("Bad \"token\"\n😀", body.get("message").asText());
+    assertEquals("/api/café/\"x\"", body.get("path").asText());
+    assertEquals("401 UNAUTHORIZED", body.get("errorCode").asText());
+    OffsetDateTime timestamp = OffsetDateTime.parse(body.get("timestamp").asText());
+    assertTrue(Duration.between(timestamp.toInstant(), Instant.now()).abs().toSeconds() < 5);
+  }
+
+  /** Returns the value written as a JSON string literal. */
+  private static String escaped(String value) {
+    DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(16);
+    buffer.write((byte) '"');
+    ErrorResponseWriter.writeEscaped(buffer, value);
+    buffer.write((byte) '"');
+    return buffer.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,177 @@
+package vaultweb.apigateway.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+import vaultweb.apigateway.model.RefreshToken;
+import vaultweb.apigateway.util.TokenDigest;
+
+import reactor.core.publisher.Flux;
+
+class RefreshTokenRepositoryTest {
+  private static PostgresTestDatabase database;
+  private static RefreshTokenRepository repository;
+
+  @BeforeAll
+  static void createDatabase() {
+    database = PostgresTestDatabase.create();
+    repository = repository(database);
+  }
+
+  @Test
+  void upsertReplacesTheUsersToken() {
+    Integer userId = database.createUser("alice");
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    RefreshToken first =
+        repository
+            .upsertForUser(userId, TokenDigest.sha256("first"), now.plusSeconds(60), now)
+            .block();
+    RefreshToken second =
+        repository
+            .upsertForUser(
+                userId, TokenDigest.sha256("second"), now.plusSeconds(120), now.plusSeconds(1))
+            .block();
+
+    assertEquals(first.getId(), second.getId());
+    assertArrayEquals(TokenDigest.sha256("second"), second.getTokenHash());
+    assertEquals(now.plusSeconds(120), second.getExpiryDate());
+    assertEquals(1, tokensOf(database, userId));
+  }
+
+  @Test
+  void concurrentUpsertsLeaveOneToken() {
+    Integer userId = database.createUser("bob");
+    Instant now = Instant.now();
+    Flux.range(0, 20)
+        .flatMap(
+            i ->
+                repository.upsertForUser(
+                    userId, TokenDigest.sha256("token-" + i), now.plus(Duration.ofDays(1)), now))
+        .blockLast();
+
+    assertEquals(1, tokensOf(database, userId));
+  }
+
+  @Test
+  void schemaUpgradesTablesLeftByEarlierIssuance() {
+    PostgresTestDatabase legacy = PostgresTestDatabase.createEmpty();
+    legacy
+        .databaseClient()
+        .sql(
+            """
+            CREATE TABLE users (
+                id       SERIAL PRIMARY KEY,
+                name     VARCHAR(255) NOT NULL,
+                username VARCHAR(255) NOT NULL,
+                email    VARCHAR(255) NOT NULL,
+                password VARCHAR(255) NOT NULL
+            );
+            INSERT INTO users (id, name, username, email, password)
+            VALUES (3, 'c', 'c', 'c@example.com', 'hash'), (4, 'd', 'd', 'd@example.com', 'hash');
+            CREATE TABLE refresh_tokens (
+                id          BIGSERIAL PRIMARY KEY,
+                user_id     INTEGER     NOT NULL,
+                token       VARCHAR(64) NOT NULL,
+                expiry_date TIMESTAMPTZ NOT NULL,
+                created_at  TIMESTAMPTZ NOT NULL
+            );
+            INSERT INTO refresh_tokens (user_id, token, expiry_date, created_at)
+            VALUES (3, 'old', now(), now()), (3, 'new', now(), now()), (4, 'other', now(), now());
+            """)
+        .then()
+        .block();
+
+    legacy.applySchema();
+
+    // duplicates are collapsed to the newest row and raw tokens are replaced by their digests
+    assertEquals(3, ownerOf(legacy, "new"));
+    assertEquals(4, ownerOf(legacy, "other"));
+    assertNull(ownerOf(legacy, "old"));
+    assertFalse(
+        legacy
+            .databaseClient()
+            .sql(
+                """
+                SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                                WHERE table_name = 'refresh_tokens' AND column_name = 'token')
+                """)
+            .map(row -> row.get(0, Boolean.class))
+            .one()
+            .block());
+  }
+
+  @Test
+  void schemaUpgradesTablesThatAlreadyHaveConstraints() {
+    PostgresTestDatabase legacy = PostgresTestDatabase.createEmpty();
+    // created by hand, with inline constraints under their default names
+    legacy
+        .databaseClient()
+        .sql(
+            """
+            CREATE TABLE users (
+                id       SERIAL PRIMARY KEY,
+                name     VARCHAR(255) NOT NULL,
+                username VARCHAR(255) NOT NULL UNIQUE,
+                email    VARCHAR(255) NOT NULL UNIQUE,
+                password VARCHAR(255) NOT NULL
+            );
+            INSERT INTO users (id, name, username, email, password)
+            VALUES (5, 'e', 'e', 'e@example.com', 'hash');
+            CREATE TABLE refresh_tokens (
+                id          BIGSERIAL PRIMARY KEY,
+                user_id     INTEGER     NOT NULL REFERENCES users (id),
+                token       VARCHAR(64) NOT NULL,
+                expiry_date TIMESTAMPTZ NOT NULL,
+                created_at  TIMESTAMPTZ NOT NULL
+            );
+            INSERT INTO refresh_tokens (user_id, token, expiry_date, created_at)
+            VALUES (5, 'token', now(), now());
+            """)
+        .then()
+        .block();
+
+    legacy.applySchema();
+
+    assertEquals(5, ownerOf(legacy, "token"));
+    // the replaced foreign key cascades
+    legacy.databaseClient().sql("DELETE FROM users WHERE id = 5").then().block();
+    assertEquals(0, tokensOf(legacy, 5));
+  }
+
+  private static RefreshTokenRepository repository(PostgresTestDatabase database) {
+    return database.repository(
+        RefreshTokenRepository.class,
+        new RefreshTokenRepositoryCustomImpl(database.databaseClient()));
+  }
+
+  private static long tokensOf(PostgresTestDatabase database, int userId) {
+    return database
+        .databaseClient()
+        .sql("SELECT count(*) FROM refresh_tokens WHERE user_id = :userId")
+        .bind("userId", userId)
+        .map(row -> row.get(0, Long.class))
+        .one()
+        .block();
+  }
+
+  /** Looks up a raw token the way the gateway does, by its digest. */
+  private static Integer ownerOf(PostgresTestDatabase database, String token) {
+    return database
+        .databaseClient()
+        .sql("SELECT user_id FROM refresh_tokens WHERE token_hash = :tokenHash")
+        .bind("tokenHash", TokenDigest.sha256(token))
+        .map(row -> row.get(0, Integer.class))
+        .one()
+        .block();
+  }
+}
@@ -0,0 +1,46 @@
+package vaultweb.apigateway.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+
+class UserRepositoryTest {
+  private static PostgresTestDatabase database;
+  private static UserRepository repository;
+
+  @BeforeAll
+  static void createDatabase() {
+    database = PostgresTestDatabase.create();
+    repository = database.repository(UserRepository.class);
+  }
+
+  @Test
+  void findsLoginByEmailOrUsernameIgnoringCase() {
+    Integer id = database.createUser("alice");
+
+    assertEquals(id, repository.findByLogin("alice").block().getId());
+    assertEquals(id, repository.findByLogin("ALICE").block().getId());
+    assertEquals(id, repository.findByLogin("Alice@Example.com").block().getId());
+    assertNull(repository.findByLogin("nobody").block());
+  }
+
+  @Test
+  void prefersEmailMatchOverUsernameMatch() {
+    Integer byEmail = database.createUser("carol");
+    // another account took carol's email address as its username
+    database.createUser("carol@example.com");
+
+    assertEquals(byEmail, repository.findByLogin("carol@example.com").block().getId());
+  }
+
+  @Test
+  void findsUsernameIgnoringCase() {
+    Integer id = database.createUser("bob");
+
+    assertEquals(id, repository.findByUsername("BOB").block().getId());
+  }
+}
@@ -0,0 +1,128 @@
+package vaultweb.apigateway.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.ssl.DefaultSslBundleRegistry;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+import vaultweb.apigateway.config.JwtAuthenticationFilter;
+import vaultweb.apigateway.config.JwtGatewayFilterFactory;
+import vaultweb.apigateway.exceptions.ErrorResponseWriter;
+
+class RoutingServiceTest {
+  private final GenericApplicationContext context = new GenericApplicationContext();
+  private RoutingService routingService;
+
+  RoutingServiceTest() {
+    context.registerBean(PathRoutePredicateFactory.class);
+    context.refresh();
+  }
+
+  @AfterEach
+  void close() {
+    if (routingService != null) {
+      routingService.destroy();
+    }
+    context.close();
+  }
+
+  @Test
+  void buildsRoutesFromTheTable() {
+    routingService =
+        routingService(
+            new MockEnvironment()
+                .withProperty("gateway.routes[0].id", "cloud")
+                .withProperty("gateway.routes[0].uri", "http://cloud:8080")
+                .withProperty("gateway.routes[0].paths", "/api/cloud/**")
+                .withProperty("gateway.routes[0].responseTimeout", "PT5S")
+                .withProperty("gateway.routes[1].id", "vault")
+                .withProperty("gateway.routes[1].uri", "http://vault:8080")
+                .withProperty("gateway.routes[1].paths", "/api/vault/**,/api/passwords/**"));
+
+    List<Route> routes = routingService.getRoutes().collectList().block();
+
+    assertEquals(List.of("cloud", "vault"), routes.stream().map(Route::getId).toList());
+    Route cloud = routes.get(0);
+    assertEquals(URI.create("http://cloud:8080"), cloud.getUri());
+    assertEquals(5000L, cloud.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR));
+    assertEquals(2000L, cloud.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR));
+    // every route is protected by the Jwt filter
+    assertEquals(1, cloud.getFilters().size());
+  }
+
+  @Test
+  void givesEachRouteItsOwnClient() {
+    routingService =
+        routingService(
+            new MockEnvironment()
+                .withProperty("gateway.routes[0].id", "cloud")
+                .withProperty("gateway.routes[0].uri", "http://cloud:8080")
+                .withProperty("gateway.routes[0].paths", "/api/cloud/**")
+                .withProperty("gateway.routes[1].id", "vault")
+                .withProperty("gateway.routes[1].uri", "http://vault:8080")
+                .withProperty("gateway.routes[1].paths", "/api/vault/**"));
+
+    assertNotNull(routingService.getHttpClient("cloud"));
+    assertNotSame(routingService.getHttpClient("cloud"), routingService.getHttpClient("vault"));
+    assertNull(routingService.getHttpClient("unknown"));
+  }
+
+  @Test
+  void rejectsDuplicateRouteIds() {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("gateway.routes[0].id", "cloud")
+            .withProperty("gateway.routes[0].uri", "http://cloud:8080")
+            .withProperty("gateway.routes[0].paths", "/api/cloud/**")
+            .withProperty("gateway.routes[1].id", "cloud")
+            .withProperty("gateway.routes[1].uri", "http://other:8080")
+            .withProperty("gateway.routes[1].paths", "/api/other/**");
+
+    assertThrows(IllegalStateException.class, () -> routingService(environment));
+  }
+
+  @Test
+  void rejectsRouteWithoutPaths() {
+    MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("gateway.routes[0].id", "cloud")
+            .withProperty("gateway.routes[0].uri", "http://cloud:8080");
+
+    assertThrows(BindException.class, () -> routingService(environment));
+  }
+
+  private RoutingService routingService(MockEnvironment environment) {
+    HttpClientProperties httpClientProperties = new HttpClientProperties();
+    ServerProperties serverProperties = new ServerProperties();
+    return new RoutingService(
+        environment,
+        new RouteLocatorBuilder(context),
+        new JwtGatewayFilterFactory(mock(JwtAuthenticationFilter.class), new ErrorResponseWriter()),
+        httpClientProperties,
+        serverProperties,
+        new HttpClientSslConfigurer(
+            httpClientProperties.getSsl(), serverProperties, new DefaultSslBundleRegistry()),
+        new StaticListableBeanFactory().getBeanProvider(HttpClientCustomizer.class));
+  }
+}
@@ -0,0 +1,53 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.service.auth.AuthMetrics.Operation;
+import vaultweb.apigateway.service.auth.AuthMetrics.Phase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class AuthMetricsTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AuthMetrics metrics = new AuthMetrics(meterRegistry);
+
+  @Test
+  void tagsOperationsWithTheirOutcome() {
+    metrics.timeOperation(Operation.LOGIN, Mono.just("token")).block();
+    metrics
+        .timeOperation(Operation.LOGIN, Mono.error(new IllegalStateException()))
+        .onErrorResume(e -> Mono.empty())
+        .block();
+    metrics.timeOperation(Operation.LOGIN, Mono.never()).subscribe().dispose();
+
+    assertEquals(1, operations("success"));
+    assertEquals(1, operations("failure"));
+    assertEquals(1, operations("cancelled"));
+  }
+
+  @Test
+  void timesPhasesOnSubscription() {
+    Mono<String> lookup = metrics.timePhase(Phase.LOGIN_USER_LOOKUP, Mono.just("alice"));
+    assertEquals(0, phases("user_lookup"));
+
+    lookup.block();
+    lookup.block();
+
+    assertEquals(2, phases("user_lookup"));
+  }
+
+  private long operations(String outcome) {
+    return meterRegistry
+        .timer("auth.operation.duration", "operation", "login", "outcome", outcome)
+        .count();
+  }
+
+  private long phases(String phase) {
+    return meterRegistry
+        .timer("auth.operation.phase.duration", "operation", "login", "phase", phase)
+        .count();
+  }
+}
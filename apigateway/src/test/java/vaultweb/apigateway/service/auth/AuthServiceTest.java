@@ -0,0 +1,181 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+import vaultweb.apigateway.dto.request.LoginRequest;
+import vaultweb.apigateway.dto.request.UserRegistrationRequest;
+import vaultweb.apigateway.dto.response.AuthResponse;
+import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+import vaultweb.apigateway.model.RefreshToken;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.repositories.RefreshTokenRepository;
+import vaultweb.apigateway.repositories.UserRepository;
+import vaultweb.apigateway.util.BcryptUtil;
+import vaultweb.apigateway.util.JwtUtil;
+import vaultweb.apigateway.util.PasswordHashingEngine;
+import vaultweb.apigateway.util.SecurityContextUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class AuthServiceTest {
+  private static final String PASSWORD = "Secret#123";
+
+  private static PostgresTestDatabase database;
+  private static PasswordHashingEngine passwordHashingEngine;
+  private static AuthService authService;
+
+  @BeforeAll
+  static void createDatabase() {
+    database = PostgresTestDatabase.create();
+    // new hashes at cost 5, so that a stored cost 4 hash is outdated; a second worker is idle
+    // while the login's own check winds down, so the rehash is not skipped
+    passwordHashingEngine =
+        new PasswordHashingEngine(
+            2, 16, 5, 4, 16, Duration.ofMillis(250), new SimpleMeterRegistry());
+    RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    when(refreshTokenService.createRefreshToken(any()))
+        .thenReturn(Mono.just(RefreshToken.builder().token("refresh").build()));
+    JwtUtil jwtUtil = mock(JwtUtil.class);
+    when(jwtUtil.generateToken(any(User.class))).thenReturn("access");
+    authService =
+        new AuthService(
+            database.repository(UserRepository.class),
+            refreshTokenService,
+            jwtUtil,
+            mock(SecurityContextUtil.class),
+            mock(RefreshTokenRepository.class),
+            passwordHashingEngine,
+            mock(UserCache.class),
+            new AuthMetrics(new SimpleMeterRegistry()),
+            new LoginRateLimiter(
+                false,
+                100,
+                1,
+                Duration.ofMinutes(1),
+                1,
+                Duration.ofMinutes(1),
+                new SimpleMeterRegistry()),
+            mock(TokenRevocationService.class));
+  }
+
+  @AfterAll
+  static void shutDown() {
+    passwordHashingEngine.destroy();
+  }
+
+  @Test
+  void registersUser() {
+    assertEquals(
+        "alice",
+        authService.registerUser(request("alice@example.com", "alice")).block().username());
+  }
+
+  @Test
+  void rejectsDuplicateEmail() {
+    authService.registerUser(request("bob@example.com", "bob")).block();
+
+    Throwable error = registrationError(request("bob@example.com", "bobby"));
+
+    assertEquals("User with email bob@example.com already exists", error.getMessage());
+    assertEquals(
+        DefaultExceptionLevels.DUPLICATE_EXCEPTION,
+        assertInstanceOf(DefaultException.class, error).getLevel());
+  }
+
+  @Test
+  void rejectsDuplicateUsername() {
+    authService.registerUser(request("carol@example.com", "carol")).block();
+
+    Throwable error = registrationError(request("carol@example.org", "carol"));
+
+    assertEquals("User with username carol already exists", error.getMessage());
+    assertEquals(
+        DefaultExceptionLevels.DUPLICATE_EXCEPTION,
+        assertInstanceOf(DefaultException.class, error).getLevel());
+  }
+
+  @Test
+  void rejectsUsernameDifferingOnlyInCase() {
+    authService.registerUser(request("dave@example.com", "dave")).block();
+
+    Throwable error = registrationError(request("dave@example.org", "Dave"));
+
+    assertEquals("User with username Dave already exists", error.getMessage());
+  }
+
+  @Test
+  void rehashesOutdatedPasswordAfterLogin() throws InterruptedException {
+    Integer id = database.createUser("erin");
+    storePasswordHash(id, BcryptUtil.encode(PASSWORD, 4));
+
+    AuthResponse response = authService.login(new LoginRequest("erin", PASSWORD)).block();
+
+    assertEquals("access", response.accessToken());
+    for (int attempt = 0; attempt < 500 && storedCost(id) != 5; attempt++) {
+      Thread.sleep(10);
+    }
+    assertEquals(5, storedCost(id));
+  }
+
+  @Test
+  void rejectsWrongPassword() {
+    Integer id = database.createUser("frank");
+    storePasswordHash(id, BcryptUtil.encode(PASSWORD, 4));
+
+    Throwable error =
+        authService
+            .login(new LoginRequest("frank", "Wrong#123"))
+            .then(Mono.<Throwable>empty())
+            .onErrorResume(Mono::just)
+            .block();
+
+    assertEquals("Invalid email or password", error.getMessage());
+    assertEquals(4, storedCost(id));
+  }
+
+  private static void storePasswordHash(Integer id, String hash) {
+    database
+        .databaseClient()
+        .sql("UPDATE users SET password = :hash WHERE id = :id")
+        .bind("hash", hash)
+        .bind("id", id)
+        .then()
+        .block();
+  }
+
+  private static int storedCost(Integer id) {
+    return BcryptUtil.rounds(
+        database
+            .databaseClient()
+            .sql("SELECT password FROM users WHERE id = :id")
+            .bind("id", id)
+            .map(row -> row.get(0, String.class))
+            .one()
+            .block());
+  }
+
+  private static Throwable registrationError(UserRegistrationRequest request) {
+    return authService
+        .registerUser(request)
+        .then(Mono.<Throwable>empty())
+        .onErrorResume(Mono::just)
+        .block();
+  }
+
+  private static UserRegistrationRequest request(String email, String username) {
+    return new UserRegistrationRequest(email, username, username, PASSWORD);
+  }
+}
@@ -0,0 +1,88 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.exceptions.RateLimitExceededException;
+import vaultweb.apigateway.service.auth.AuthMetrics.Operation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class LoginRateLimiterTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void limitsAddressesAcrossLoginAndRegistration() {
+    LoginRateLimiter limiter = limiter(true);
+
+    assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.LOGIN, "10.0.0.1"));
+    assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.REGISTER, "10.0.0.1"));
+    assertTrue(limiter.tryAcquireAddress(Operation.LOGIN, "10.0.0.1").isPositive());
+    assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.LOGIN, "10.0.0.2"));
+    assertEquals(1, rejections(Operation.LOGIN, "address"));
+  }
+
+  @Test
+  void sharesUsernameBucketAcrossSpellings() {
+    LoginRateLimiter limiter = limiter(true);
+
+    assertNull(usernameError(limiter, "alice"));
+    assertNull(usernameError(limiter, " Alice "));
+    assertInstanceOf(RateLimitExceededException.class, usernameError(limiter, "ALICE"));
+    assertEquals(1, rejections(Operation.LOGIN, "username"));
+  }
+
+  @Test
+  void keepsUsernameBucketAboveAddressCapacity() {
+    // as configured by default: one client runs out of attempts before the account does
+    LoginRateLimiter limiter =
+        new LoginRateLimiter(
+            true, 100, 2, Duration.ofMinutes(1), 3, Duration.ofMinutes(1), meterRegistry);
+
+    for (int i = 0; i < 2; i++) {
+      assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.LOGIN, "203.0.113.1"));
+      assertNull(usernameError(limiter, "victim"));
+    }
+    assertTrue(limiter.tryAcquireAddress(Operation.LOGIN, "203.0.113.1").isPositive());
+
+    assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.LOGIN, "198.51.100.7"));
+    assertNull(usernameError(limiter, "victim"));
+  }
+
+  @Test
+  void admitsEverythingWhenDisabled() {
+    LoginRateLimiter limiter = limiter(false);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(Duration.ZERO, limiter.tryAcquireAddress(Operation.LOGIN, "10.0.0.1"));
+      assertNull(usernameError(limiter, "alice"));
+    }
+  }
+
+  private LoginRateLimiter limiter(boolean enabled) {
+    return new LoginRateLimiter(
+        enabled, 100, 2, Duration.ofMinutes(1), 2, Duration.ofMinutes(1), meterRegistry);
+  }
+
+  private static Throwable usernameError(LoginRateLimiter limiter, String username) {
+    return limiter
+        .acquireUsername(Operation.LOGIN, username)
+        .then(Mono.<Throwable>empty())
+        .onErrorResume(Mono::just)
+        .block();
+  }
+
+  private double rejections(Operation operation, String key) {
+    return meterRegistry
+        .counter(
+            "auth.rate_limit.rejected", "operation", operation.name().toLowerCase(), "key", key)
+        .count();
+  }
+}
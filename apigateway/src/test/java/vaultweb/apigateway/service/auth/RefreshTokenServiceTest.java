@@ -0,0 +1,157 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.model.RefreshTokenRotation;
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.repositories.RefreshTokenRepository;
+import vaultweb.apigateway.repositories.RefreshTokenRepositoryCustomImpl;
+import vaultweb.apigateway.util.RefreshTokenGenerator;
+import vaultweb.apigateway.util.TokenDigest;
+
+import reactor.core.publisher.Mono;
+
+class RefreshTokenServiceTest {
+  private static PostgresTestDatabase database;
+  private static RefreshTokenRepository repository;
+  private static RefreshTokenService service;
+
+  @BeforeAll
+  static void createDatabase() {
+    database = PostgresTestDatabase.create();
+    repository =
+        database.repository(
+            RefreshTokenRepository.class,
+            new RefreshTokenRepositoryCustomImpl(database.databaseClient()));
+    service = new RefreshTokenService(repository, new RefreshTokenGenerator(0));
+    ReflectionTestUtils.setField(service, "refreshExpiration", Duration.ofDays(7).toMillis());
+  }
+
+  @Test
+  void rotatesPresentedToken() {
+    User user = createUser("alice");
+    String token = service.createRefreshToken(user).block().getToken();
+
+    RefreshTokenRotation rotation = service.rotateRefreshToken(token).block();
+
+    assertEquals(user.getId(), rotation.user().getId());
+    assertEquals("alice", rotation.user().getUsername());
+    assertNotEquals(token, rotation.token());
+    assertEquals(user.getId(), ownerOf(rotation.token()));
+  }
+
+  @Test
+  void rejectsReplayedToken() {
+    User user = createUser("bob");
+    String token = service.createRefreshToken(user).block().getToken();
+    String next = service.rotateRefreshToken(token).block().token();
+
+    Throwable error = rotationError(token);
+
+    assertEquals("Refresh token not found", error.getMessage());
+    // the replay leaves the token issued by the first rotation in place
+    assertEquals(user.getId(), ownerOf(next));
+  }
+
+  @Test
+  void deletesExpiredToken() {
+    User user = createUser("carol");
+    Instant past = Instant.now().minus(Duration.ofDays(1));
+    repository
+        .upsertForUser(
+            user.getId(), TokenDigest.sha256("expired"), past, past.minus(Duration.ofDays(7)))
+        .block();
+
+    Throwable error = rotationError("expired");
+
+    assertEquals("Refresh token has expired. Please login again.", error.getMessage());
+    assertNull(ownerOf("expired"));
+  }
+
+  @Test
+  void concurrentRotationOfTheSameTokenLoses() throws Exception {
+    User user = createUser("dave");
+    String token = service.createRefreshToken(user).block().getToken();
+
+    try (Connection connection = database.dataSource().getConnection()) {
+      // another node rotates the token first and holds the row lock until it commits
+      connection.setAutoCommit(false);
+      try (PreparedStatement update =
+          connection.prepareStatement(
+              "UPDATE refresh_tokens SET token_hash = ? WHERE token_hash = ?")) {
+        update.setBytes(1, TokenDigest.sha256("rotated-elsewhere"));
+        update.setBytes(2, TokenDigest.sha256(token));
+        assertEquals(1, update.executeUpdate());
+      }
+
+      CompletableFuture<Throwable> rotation =
+          service
+              .rotateRefreshToken(token)
+              .then(Mono.<Throwable>empty())
+              .onErrorResume(Mono::just)
+              .toFuture();
+      awaitLockWait();
+      connection.commit();
+
+      assertInstanceOf(DefaultException.class, rotation.get());
+    }
+    assertEquals(user.getId(), ownerOf("rotated-elsewhere"));
+  }
+
+  private static Throwable rotationError(String token) {
+    return service
+        .rotateRefreshToken(token)
+        .then(Mono.<Throwable>empty())
+        .onErrorResume(Mono::just)
+        .block();
+  }
+
+  private static User createUser(String username) {
+    return User.builder().id(database.createUser(username)).username(username).build();
+  }
+
+  private static Integer ownerOf(String token) {
+    return database
+        .databaseClient()
+        .sql("SELECT user_id FROM refresh_tokens WHERE token_hash = :tokenHash")
+        .bind("tokenHash", TokenDigest.sha256(token))
+        .map(row -> row.get(0, Integer.class))
+        .one()
+        .block();
+  }
+
+  private static void awaitLockWait() throws Exception {
+    try (Connection connection = database.dataSource().getConnection();
+        PreparedStatement waiting =
+            connection.prepareStatement(
+                "SELECT count(*) FROM pg_stat_activity"
+                    + " WHERE datname = current_database() AND wait_event_type = 'Lock'")) {
+      for (int attempt = 0; attempt < 500; attempt++) {
+        try (ResultSet result = waiting.executeQuery()) {
+          result.next();
+          if (result.getInt(1) > 0) {
+            return;
+          }
+        }
+        Thread.sleep(10);
+      }
+    }
+    throw new AssertionError("rotation never waited for the row lock");
+  }
+}
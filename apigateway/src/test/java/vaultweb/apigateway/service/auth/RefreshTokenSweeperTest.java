@@ -0,0 +1,100 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RefreshTokenSweeperTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PostgresTestDatabase database;
+  private RefreshTokenSweeper sweeper;
+
+  @BeforeEach
+  void createDatabase() {
+    database = PostgresTestDatabase.create();
+    // chunks smaller than the backlog, so a sweep needs several statements
+    sweeper =
+        new RefreshTokenSweeper(
+            database.databaseClient(), 2, Duration.ofSeconds(30), meterRegistry);
+    insertTokens(5, "now() - interval '1 day'");
+    insertTokens(1, "now() + interval '1 day'");
+    database
+        .databaseClient()
+        .sql(
+            """
+            INSERT INTO revoked_tokens (jti, expires_at)
+            VALUES ('expired', now() - interval '1 minute'), ('live', now() + interval '1 hour')
+            """)
+        .then()
+        .block();
+  }
+
+  @Test
+  void deletesExpiredTokensInChunks() {
+    sweeper.sweep().block();
+
+    assertEquals(1, remainingTokens());
+    assertEquals(5, meterRegistry.counter("auth.refresh_tokens.swept").count());
+    assertEquals(1, count("revoked_tokens"));
+  }
+
+  @Test
+  void skipsWhileAnotherNodeHoldsTheLock() throws Exception {
+    long lockKey = (long) ReflectionTestUtils.getField(RefreshTokenSweeper.class, "LOCK_KEY");
+    try (Connection connection = database.dataSource().getConnection();
+        PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+      lock.setLong(1, lockKey);
+      lock.execute();
+
+      sweeper.sweep().block();
+    }
+
+    assertEquals(6, remainingTokens());
+    assertEquals(2, count("revoked_tokens"));
+    assertEquals(0, meterRegistry.counter("auth.refresh_tokens.swept").count());
+  }
+
+  /** Inserts tokens for {@code count} new users, each expiring at {@code expiryDate}. */
+  private void insertTokens(int count, String expiryDate) {
+    database
+        .databaseClient()
+        .sql(
+            """
+            WITH created AS (
+                INSERT INTO users (name, username, email, password)
+                SELECT 'user', md5(random()::text), md5(random()::text), 'hash'
+                  FROM generate_series(1, :count)
+                RETURNING id
+            )
+            INSERT INTO refresh_tokens (user_id, token_hash, expiry_date, created_at)
+            SELECT id, sha256(convert_to(id::text, 'UTF8')), %s, now() FROM created
+            """
+                .formatted(expiryDate))
+        .bind("count", count)
+        .then()
+        .block();
+  }
+
+  private long remainingTokens() {
+    return count("refresh_tokens");
+  }
+
+  private long count(String table) {
+    return database
+        .databaseClient()
+        .sql("SELECT count(*) FROM " + table)
+        .map(row -> row.get(0, Long.class))
+        .one()
+        .block();
+  }
+}
@@ -0,0 +1,96 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import vaultweb.apigateway.PostgresTestDatabase;
+import vaultweb.apigateway.repositories.RevokedTokenRepository;
+import vaultweb.apigateway.util.RevokedTokenSet;
+import vaultweb.apigateway.util.VerifiedClaims;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+
+class TokenRevocationServiceTest {
+  private final Instant expiresAt = Instant.now().plus(Duration.ofMinutes(15));
+  private PostgresTestDatabase database;
+  private Node first;
+  private Node second;
+
+  @BeforeEach
+  void createDatabase() {
+    database = PostgresTestDatabase.create();
+  }
+
+  @AfterEach
+  void stopNodes() {
+    for (Node node : new Node[] {first, second}) {
+      if (node != null) {
+        node.service.destroy();
+      }
+    }
+  }
+
+  @Test
+  void sharesRevocationsWithOtherNodes() throws Exception {
+    first = startNode();
+    second = startNode();
+
+    first.service.revoke(claims("jti-1")).block();
+
+    assertTrue(first.revokedTokens.isRevoked("jti-1"));
+    await(() -> second.revokedTokens.isRevoked("jti-1"));
+    assertFalse(second.revokedTokens.isRevoked("jti-2"));
+  }
+
+  @Test
+  void loadsRevocationsStoredBeforeStartup() throws Exception {
+    first = startNode();
+    first.service.revoke(claims("jti-1")).block();
+
+    second = startNode();
+
+    assertTrue(second.revokedTokens.isRevoked("jti-1"));
+  }
+
+  private Node startNode() throws InterruptedException {
+    @SuppressWarnings("unchecked")
+    ObjectProvider<ConnectionFactory> connectionFactory = mock(ObjectProvider.class);
+    when(connectionFactory.getIfAvailable()).thenReturn(database.connectionFactory());
+    RevokedTokenSet revokedTokens = new RevokedTokenSet(100, new SimpleMeterRegistry());
+    TokenRevocationService service =
+        new TokenRevocationService(
+            database.repository(RevokedTokenRepository.class),
+            revokedTokens,
+            connectionFactory,
+            Duration.ofSeconds(10));
+    service.run(null);
+    return new Node(service, revokedTokens);
+  }
+
+  private VerifiedClaims claims(String jti) {
+    return new VerifiedClaims(
+        "alice", 1, List.of("user"), null, null, Instant.now(), expiresAt, jti);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int attempt = 0; attempt < 500 && !condition.getAsBoolean(); attempt++) {
+      Thread.sleep(10);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  private record Node(TokenRevocationService service, RevokedTokenSet revokedTokens) {}
+}
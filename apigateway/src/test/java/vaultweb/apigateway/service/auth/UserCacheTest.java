@@ -0,0 +1,64 @@
+package vaultweb.apigateway.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import vaultweb.apigateway.model.User;
+import vaultweb.apigateway.repositories.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class UserCacheTest {
+  private final UserRepository repository = mock(UserRepository.class);
+  private final UserCache cache =
+      new UserCache(repository, Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+  private final User alice = User.builder().id(1).username("alice").build();
+
+  @Test
+  void queriesTheDatabaseOnlyOnAMiss() {
+    when(repository.findByUsername("alice")).thenReturn(Mono.just(alice));
+
+    assertSame(alice, cache.findByUsername("alice").block());
+    assertSame(alice, cache.findByUsername("alice").block());
+
+    verify(repository, times(1)).findByUsername("alice");
+  }
+
+  @Test
+  void sharesOneEntryAcrossSpellings() {
+    when(repository.findByUsername("alice")).thenReturn(Mono.just(alice));
+
+    assertSame(alice, cache.findByUsername("Alice").block());
+    assertSame(alice, cache.findByUsername("ALICE").block());
+
+    verify(repository, times(1)).findByUsername("alice");
+  }
+
+  @Test
+  void doesNotCacheAbsentUsers() {
+    when(repository.findByUsername("alice")).thenReturn(Mono.empty(), Mono.just(alice));
+
+    assertNull(cache.findByUsername("alice").block());
+    assertSame(alice, cache.findByUsername("alice").block());
+  }
+
+  @Test
+  void reloadsAfterInvalidation() {
+    User renamed = User.builder().id(1).username("alice").email("new@example.com").build();
+    when(repository.findByUsername("alice")).thenReturn(Mono.just(alice), Mono.just(renamed));
+    cache.findByUsername("alice").block();
+
+    cache.invalidateUsername("Alice");
+
+    assertSame(renamed, cache.findByUsername("alice").block());
+  }
+}
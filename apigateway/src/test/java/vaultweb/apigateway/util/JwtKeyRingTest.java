@@ -0,0 +1,75 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+class JwtKeyRingTest {
+  private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+  @Test
+  void failsWithoutSigningKeys() {
+    assertThrows(
+        IllegalStateException.class, () -> new JwtKeyRing(new MockEnvironment(), "", null, false));
+  }
+
+  @Test
+  void generatesEphemeralKeyOnlyWhenAllowed() {
+    JwtKeyRing keyRing = new JwtKeyRing(new MockEnvironment(), "", null, true);
+
+    assertNotNull(keyRing.currentSigningKey().privateKey());
+  }
+
+  @Test
+  void legacySecretRequiresCutoff() {
+    assertThrows(
+        IllegalStateException.class,
+        () -> new JwtKeyRing(new MockEnvironment(), SECRET, null, true));
+  }
+
+  @Test
+  void acceptsLegacyTokensUntilCutoff() {
+    String token = legacyToken();
+    JwtKeyRing open =
+        new JwtKeyRing(
+            new MockEnvironment(), SECRET, Instant.now().plus(Duration.ofHours(1)), true);
+    JwtKeyRing closed =
+        new JwtKeyRing(
+            new MockEnvironment(), SECRET, Instant.now().minus(Duration.ofSeconds(1)), true);
+
+    assertEquals(
+        "legacy",
+        Jwts.parser().keyLocator(open).build().parseSignedClaims(token).getPayload().getSubject());
+    assertThrows(
+        UnsupportedJwtException.class,
+        () -> Jwts.parser().keyLocator(closed).build().parseSignedClaims(token));
+  }
+
+  @Test
+  void rejectsLegacyTokensWithoutSecret() {
+    JwtKeyRing keyRing = new JwtKeyRing(new MockEnvironment(), "", null, true);
+
+    assertThrows(
+        UnsupportedJwtException.class,
+        () -> Jwts.parser().keyLocator(keyRing).build().parseSignedClaims(legacyToken()));
+  }
+
+  private static String legacyToken() {
+    return Jwts.builder()
+        .subject("legacy")
+        .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+        .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+        .compact();
+  }
+}
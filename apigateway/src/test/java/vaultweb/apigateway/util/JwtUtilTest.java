@@ -0,0 +1,114 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import vaultweb.apigateway.model.User;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtUtilTest {
+  private final JwtKeyRing keyRing = new JwtKeyRing(new MockEnvironment(), "", null, true);
+
+  @Test
+  void verifiesIssuedToken() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofHours(1));
+
+    VerifiedClaims claims = jwtUtil.verify(jwtUtil.generateToken(alice()));
+
+    assertEquals("alice", claims.subject());
+    assertEquals(List.of("user"), claims.roles());
+    assertNotNull(claims.jti());
+    assertTrue(claims.expiresAt().isAfter(Instant.now()));
+  }
+
+  @Test
+  void rejectsExpiredToken() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofSeconds(-1));
+
+    String token = jwtUtil.generateToken(alice());
+
+    assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+  }
+
+  @Test
+  void rejectsTokenWithTamperedSignature() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofHours(1));
+    String token = jwtUtil.generateToken(alice());
+    String other = jwtUtil.generateToken(alice());
+    String tampered =
+        token.substring(0, token.lastIndexOf('.')) + other.substring(other.lastIndexOf('.'));
+
+    assertThrows(SignatureException.class, () -> jwtUtil.verify(tampered));
+  }
+
+  @Test
+  void rejectsTokenSignedWithUnknownKey() {
+    String token =
+        jwtUtil(new JwtKeyRing(new MockEnvironment(), "", null, true), Duration.ofHours(1))
+            .generateToken(alice());
+
+    assertThrows(
+        UnsupportedJwtException.class, () -> jwtUtil(keyRing, Duration.ofHours(1)).verify(token));
+  }
+
+  @Test
+  void rejectsMalformedToken() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofHours(1));
+
+    assertThrows(MalformedJwtException.class, () -> jwtUtil.verify("not.a.token"));
+    assertThrows(IllegalArgumentException.class, () -> jwtUtil.verify(""));
+  }
+
+  @Test
+  void carriesUserIdButNoProfileByDefault() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofHours(1));
+
+    VerifiedClaims claims = jwtUtil.verify(jwtUtil.generateToken(alice()));
+
+    assertEquals("alice", claims.subject());
+    assertEquals(7, claims.userId());
+    assertNull(claims.name());
+    assertNull(claims.email());
+    assertFalse(claims.hasProfile());
+  }
+
+  @Test
+  void carriesProfileWhenEnabled() {
+    JwtUtil jwtUtil = jwtUtil(keyRing, Duration.ofHours(1));
+    ReflectionTestUtils.setField(jwtUtil, "includeProfile", true);
+
+    VerifiedClaims claims = jwtUtil.verify(jwtUtil.generateToken(alice()));
+
+    assertEquals("Alice", claims.name());
+    assertEquals("alice@example.com", claims.email());
+    assertTrue(claims.hasProfile());
+  }
+
+  private static User alice() {
+    return User.builder().id(7).name("Alice").username("alice").email("alice@example.com").build();
+  }
+
+  private static JwtUtil jwtUtil(JwtKeyRing keyRing, Duration expiration) {
+    JwtUtil jwtUtil = new JwtUtil(keyRing);
+    ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", expiration.toMillis());
+    ReflectionTestUtils.setField(jwtUtil, "defaultRoles", List.of("user"));
+    ReflectionTestUtils.setField(jwtUtil, "includeUserId", true);
+    return jwtUtil;
+  }
+}
@@ -0,0 +1,167 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import vaultweb.apigateway.exceptions.DefaultException;
+import vaultweb.apigateway.exceptions.dto.DefaultExceptionLevels;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class PasswordHashingEngineTest {
+  private PasswordHashingEngine engine;
+
+  @AfterEach
+  void shutDown() {
+    engine.destroy();
+  }
+
+  @Test
+  void encodesAndMatchesOnThePool() {
+    engine = engine(2, 4, 4);
+
+    String hash = engine.encode("secret").block(Duration.ofSeconds(10));
+
+    assertTrue(engine.matches("secret", hash).block(Duration.ofSeconds(10)));
+    assertFalse(engine.matches("other", hash).block(Duration.ofSeconds(10)));
+  }
+
+  @Test
+  void rejectsWhenQueueIsFull() {
+    // slow enough that the first hash is still running when the third one is submitted
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    engine = new PasswordHashingEngine(1, 1, 10, 4, 16, Duration.ofMillis(250), meterRegistry);
+
+    // one task runs, one waits in the queue, the third is turned away right away
+    List<Throwable> errors =
+        Flux.range(0, 3)
+            .flatMap(
+                i ->
+                    engine.encode("secret").then(Mono.<Throwable>empty()).onErrorResume(Mono::just))
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+    assertEquals(1, errors.size(), () -> "Expected one rejection, got " + errors);
+    DefaultException rejection = assertInstanceOf(DefaultException.class, errors.get(0));
+    assertEquals(DefaultExceptionLevels.SERVICE_UNAVAILABLE_EXCEPTION, rejection.getLevel());
+    assertEquals(1, meterRegistry.counter("auth.hashing.rejected").count());
+  }
+
+  @Test
+  void encodesDeferrableWorkOnlyOnSpareCapacity() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    engine = new PasswordHashingEngine(1, 4, 10, 4, 16, Duration.ofMillis(250), meterRegistry);
+
+    // the login hash occupies the only worker, or waits in the queue for it
+    Mono<String> login = engine.encode("secret").cache();
+    login.subscribe();
+
+    assertNull(engine.encodeIfIdle("secret").block(Duration.ofSeconds(10)));
+    assertEquals(1, meterRegistry.counter("auth.hashing.skipped").count());
+
+    login.block(Duration.ofSeconds(30));
+    awaitIdleWorkers();
+    String hash = engine.encodeIfIdle("secret").block(Duration.ofSeconds(30));
+
+    assertTrue(BcryptUtil.matches("secret", hash));
+    assertEquals(1, meterRegistry.counter("auth.hashing.skipped").count());
+  }
+
+  @Test
+  void rehashesOnlyHashesBelowTheCurrentCost() {
+    engine = engine(1, 4, 5);
+
+    assertTrue(engine.needsRehash(BcryptUtil.encode("secret", 4)));
+    assertFalse(engine.needsRehash(BcryptUtil.encode("secret", 5)));
+    assertFalse(engine.needsRehash(BcryptUtil.encode("secret", 6)));
+    assertFalse(engine.needsRehash("not a bcrypt hash"));
+  }
+
+  @Test
+  void countsChecksByStoredCost() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    engine = new PasswordHashingEngine(1, 4, 4, 4, 4, Duration.ofMillis(250), meterRegistry);
+
+    engine.matches("secret", BcryptUtil.encode("secret", 5)).block(Duration.ofSeconds(10));
+    engine.matches("secret", "not a bcrypt hash").block(Duration.ofSeconds(10));
+
+    assertEquals(1, meterRegistry.counter("auth.hashing.verified", "cost", "5").count());
+    assertEquals(1, meterRegistry.counter("auth.hashing.verified", "cost", "unknown").count());
+  }
+
+  @Test
+  void raisesExplicitCostToTheFloor() {
+    engine =
+        new PasswordHashingEngine(1, 4, 4, 5, 6, Duration.ofMillis(250), new SimpleMeterRegistry());
+
+    assertEquals(5, engine.getCost());
+  }
+
+  @Test
+  void calibratesWithinBounds() {
+    engine =
+        new PasswordHashingEngine(1, 4, 0, 4, 6, Duration.ofSeconds(10), new SimpleMeterRegistry());
+    assertEquals(6, engine.getCost());
+    engine.destroy();
+
+    engine =
+        new PasswordHashingEngine(1, 4, 0, 4, 6, Duration.ofNanos(1), new SimpleMeterRegistry());
+    assertEquals(4, engine.getCost());
+  }
+
+  @Test
+  void rejectsInvalidCostBounds() {
+    engine = engine(1, 4, 4);
+
+    assertThrows(IllegalArgumentException.class, () -> bounds(3, 6));
+    assertThrows(IllegalArgumentException.class, () -> bounds(4, 32));
+    assertThrows(IllegalArgumentException.class, () -> bounds(8, 6));
+  }
+
+  @Test
+  void rejectsExplicitCostAboveMaxCost() {
+    engine = engine(1, 4, 4);
+
+    assertThrows(IllegalArgumentException.class, () -> cost(7, 6));
+    assertThrows(IllegalArgumentException.class, () -> cost(32, BcryptUtil.MAX_ROUNDS));
+    assertThrows(IllegalArgumentException.class, () -> cost(-1, 6));
+  }
+
+  /** The worker counts as active until its task returns, slightly after the result is emitted. */
+  private void awaitIdleWorkers() {
+    ThreadPoolExecutor executor =
+        (ThreadPoolExecutor) ReflectionTestUtils.getField(engine, "executor");
+    while (executor.getActiveCount() > 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  private static void bounds(int minCost, int maxCost) {
+    new PasswordHashingEngine(
+        1, 4, 4, minCost, maxCost, Duration.ofMillis(250), new SimpleMeterRegistry());
+  }
+
+  private static void cost(int cost, int maxCost) {
+    new PasswordHashingEngine(
+        1, 4, cost, 4, maxCost, Duration.ofMillis(250), new SimpleMeterRegistry());
+  }
+
+  private static PasswordHashingEngine engine(int threads, int queueCapacity, int cost) {
+    return new PasswordHashingEngine(
+        threads, queueCapacity, cost, 4, 16, Duration.ofMillis(250), new SimpleMeterRegistry());
+  }
+}
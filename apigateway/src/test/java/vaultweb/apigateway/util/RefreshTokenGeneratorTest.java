@@ -0,0 +1,40 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RefreshTokenGeneratorTest {
+
+  @Test
+  void mintsDistinctBase64UrlTokens() {
+    RefreshTokenGenerator generator = new RefreshTokenGenerator(0);
+
+    assertDistinctTokens(generator);
+  }
+
+  @Test
+  void servesTokensFromThePrefilledPool() {
+    RefreshTokenGenerator generator = new RefreshTokenGenerator(16);
+    try {
+      assertDistinctTokens(generator);
+    } finally {
+      generator.destroy();
+    }
+  }
+
+  private static void assertDistinctTokens(RefreshTokenGenerator generator) {
+    Set<String> tokens = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      String token = generator.nextToken();
+      assertEquals(RefreshTokenGenerator.ENCODED_LENGTH, token.length());
+      assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+      tokens.add(token);
+    }
+    assertEquals(1000, tokens.size());
+  }
+}
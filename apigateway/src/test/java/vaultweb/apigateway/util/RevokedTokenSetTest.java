@@ -0,0 +1,65 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RevokedTokenSetTest {
+  private final Instant now = Instant.now();
+
+  @Test
+  void reportsAddedTokensAsRevoked() {
+    RevokedTokenSet revoked = new RevokedTokenSet(100, new SimpleMeterRegistry());
+    revoked.add("revoked", now.plus(Duration.ofMinutes(5)));
+
+    assertTrue(revoked.isRevoked("revoked"));
+    assertFalse(revoked.isRevoked("other"));
+    assertFalse(revoked.isRevoked(null));
+    assertEquals(1, revoked.size());
+  }
+
+  @Test
+  void pruneDropsExpiredTokensAndRebuildsFilter() {
+    RevokedTokenSet revoked = new RevokedTokenSet(100, new SimpleMeterRegistry());
+    for (int i = 0; i < 50; i++) {
+      revoked.add("expired-" + i, now.minusSeconds(1));
+    }
+    revoked.add("expiring-now", now);
+    revoked.add("live", now.plus(Duration.ofMinutes(5)));
+
+    assertEquals(51, revoked.prune(now));
+
+    assertEquals(1, revoked.size());
+    assertTrue(revoked.isRevoked("live"));
+    for (int i = 0; i < 50; i++) {
+      assertFalse(revoked.isRevoked("expired-" + i));
+    }
+    assertFalse(revoked.isRevoked("expiring-now"));
+
+    revoked.add("added-after-rebuild", now.plus(Duration.ofMinutes(5)));
+    assertTrue(revoked.isRevoked("added-after-rebuild"));
+    assertEquals(0, revoked.prune(now));
+    assertTrue(revoked.isRevoked("live"));
+  }
+
+  @Test
+  void staysExactBeyondExpectedEntries() {
+    RevokedTokenSet revoked = new RevokedTokenSet(10, new SimpleMeterRegistry());
+    for (int i = 0; i < 1000; i++) {
+      revoked.add("revoked-" + i, now.plus(Duration.ofMinutes(5)));
+    }
+    revoked.prune(now);
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(revoked.isRevoked("revoked-" + i));
+      assertFalse(revoked.isRevoked("other-" + i));
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTest {
+
+  @Test
+  void admitsBurstUpToCapacityThenReportsWait() {
+    TokenBuckets buckets = new TokenBuckets(5, Duration.ofMinutes(1), 100);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(Duration.ZERO, buckets.tryAcquire("client"));
+    }
+    Duration wait = buckets.tryAcquire("client");
+
+    // one token refills every 12 seconds, less the time the burst took
+    assertTrue(
+        wait.compareTo(Duration.ofSeconds(11)) > 0 && wait.compareTo(Duration.ofSeconds(12)) <= 0,
+        () -> "Unexpected wait " + wait);
+    // a rejected attempt takes no token, so the wait does not grow
+    assertTrue(buckets.tryAcquire("client").compareTo(wait) <= 0);
+  }
+
+  @Test
+  void keepsKeysApart() {
+    TokenBuckets buckets = new TokenBuckets(1, Duration.ofMinutes(1), 100);
+
+    assertEquals(Duration.ZERO, buckets.tryAcquire("a"));
+    assertTrue(buckets.tryAcquire("a").compareTo(Duration.ZERO) > 0);
+    assertEquals(Duration.ZERO, buckets.tryAcquire("b"));
+  }
+
+  @Test
+  void refillsOverThePeriod() throws InterruptedException {
+    TokenBuckets buckets = new TokenBuckets(2, Duration.ofMillis(200), 100);
+
+    assertEquals(Duration.ZERO, buckets.tryAcquire("client"));
+    assertEquals(Duration.ZERO, buckets.tryAcquire("client"));
+    Duration wait = buckets.tryAcquire("client");
+    assertTrue(wait.compareTo(Duration.ZERO) > 0);
+
+    Thread.sleep(wait.toMillis() + 10);
+    assertEquals(Duration.ZERO, buckets.tryAcquire("client"));
+  }
+}
@@ -0,0 +1,69 @@
+package vaultweb.apigateway.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VerifiedTokenCacheTest {
+  private final VerifiedTokenCache cache = new VerifiedTokenCache(100, new SimpleMeterRegistry());
+  private final AtomicInteger verifications = new AtomicInteger();
+
+  @Test
+  void reusesEntryUntilTokenExpires() {
+    Function<String, VerifiedTokenCache.Entry> verifier = verifier(Duration.ofHours(1));
+
+    VerifiedTokenCache.Entry first = cache.get("token", verifier);
+
+    assertSame(first, cache.get("token", verifier));
+    assertEquals(1, verifications.get());
+    cache.get("other", verifier);
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void dropsEntryAtTokenExpiry() {
+    Function<String, VerifiedTokenCache.Entry> verifier = verifier(Duration.ofSeconds(-1));
+
+    cache.get("token", verifier);
+    cache.get("token", verifier);
+
+    assertEquals(2, verifications.get());
+  }
+
+  @Test
+  void cachesNothingWhenVerificationFails() {
+    Function<String, VerifiedTokenCache.Entry> failing =
+        token -> {
+          verifications.incrementAndGet();
+          throw new MalformedJwtException("bad");
+        };
+
+    assertThrows(MalformedJwtException.class, () -> cache.get("token", failing));
+    assertThrows(MalformedJwtException.class, () -> cache.get("token", failing));
+    assertEquals(2, verifications.get());
+  }
+
+  private Function<String, VerifiedTokenCache.Entry> verifier(Duration expiresIn) {
+    return token -> {
+      verifications.incrementAndGet();
+      Instant now = Instant.now();
+      VerifiedClaims claims =
+          new VerifiedClaims(
+              token, null, List.of("user"), null, null, now, now.plus(expiresIn), "jti");
+      return new VerifiedTokenCache.Entry(
+          claims, new UsernamePasswordAuthenticationToken(token, null, List.of()));
+    };
+  }
+}